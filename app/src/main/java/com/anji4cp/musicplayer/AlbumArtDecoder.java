@@ -0,0 +1,130 @@
+package com.anji4cp.musicplayer;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decodes album art to the size of the view that shows it. Bounds are read
+ * first and the cover is decoded with inSampleSize on a background thread,
+ * so a 3000x3000 cover never reaches the heap at full resolution. Decoded
+ * bitmaps are kept in a byte-bounded LRU cache.
+ *
+ * Requests can be cancelled; a cancelled request skips any remaining work
+ * and never calls back.
+ */
+public class AlbumArtDecoder {
+
+    public interface Callback {
+        void onArtDecoded(String artKey, @Nullable Bitmap bitmap);
+    }
+
+    /** Handle to an in-flight decode. */
+    public static final class Request {
+        private volatile boolean cancelled = false;
+
+        @MainThread
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private static AlbumArtDecoder instance;
+
+    private final LruCache<String, Bitmap> cache;
+
+    // Satu thread: request terbaru cepat jalan setelah yang basi dibatalkan
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private AlbumArtDecoder() {
+        // 1/8 heap untuk bitmap hasil decode
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8);
+
+        cache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    public static synchronized AlbumArtDecoder getInstance() {
+        if (instance == null) {
+            instance = new AlbumArtDecoder();
+        }
+        return instance;
+    }
+
+    // =========================
+    // CACHE
+    // =========================
+    @Nullable
+    public Bitmap getCached(String artKey, int reqWidth, int reqHeight) {
+        if (artKey == null) return null;
+        return cache.get(cacheKey(artKey, reqWidth, reqHeight));
+    }
+
+    private static String cacheKey(String artKey, int reqWidth, int reqHeight) {
+        return artKey + '@' + reqWidth + 'x' + reqHeight;
+    }
+
+    // =========================
+    // DECODE
+    // =========================
+
+    /**
+     * Decodes the art for {@code artKey} to roughly {@code reqWidth} x
+     * {@code reqHeight}. The callback runs on the main thread, with a null
+     * bitmap when the track has no usable cover.
+     */
+    @MainThread
+    public Request decode(String artKey, int reqWidth, int reqHeight, Callback callback) {
+        Request request = new Request();
+
+        if (artKey == null) {
+            callback.onArtDecoded(null, null);
+            return request;
+        }
+
+        String key = cacheKey(artKey, reqWidth, reqHeight);
+        Bitmap cached = cache.get(key);
+        if (cached != null) {
+            callback.onArtDecoded(artKey, cached);
+            return request;
+        }
+
+        executor.execute(() -> {
+            if (request.isCancelled()) return;
+
+            byte[] art = AlbumArtLoader.getInstance().loadSync(artKey);
+
+            // Lagu sudah berganti saat cover dibaca → lewati decode
+            if (request.isCancelled()) return;
+
+            Bitmap bitmap = BitmapUtils.decodeSampled(art, reqWidth, reqHeight);
+            if (bitmap != null) {
+                cache.put(key, bitmap);
+            }
+
+            mainHandler.post(() -> {
+                if (!request.isCancelled()) {
+                    callback.onArtDecoded(artKey, bitmap);
+                }
+            });
+        });
+
+        return request;
+    }
+}
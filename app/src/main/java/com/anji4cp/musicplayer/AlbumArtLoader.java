@@ -0,0 +1,139 @@
+package com.anji4cp.musicplayer;
+
+import android.media.MediaMetadataRetriever;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads embedded album art on demand and keeps recently used covers in a
+ * byte-bounded LRU cache, so memory follows what is on screen instead of
+ * the size of the library.
+ */
+public class AlbumArtLoader {
+
+    public interface Callback {
+        void onArtLoaded(String artKey, @Nullable byte[] art);
+    }
+
+    // Penanda "lagu tanpa cover" supaya tidak dibaca ulang
+    private static final byte[] NO_ART = new byte[0];
+
+    private static AlbumArtLoader instance;
+
+    private final LruCache<String, byte[]> cache;
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private AlbumArtLoader() {
+        // 1/16 heap untuk cover mentah
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16);
+
+        cache = new LruCache<String, byte[]>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, byte[] value) {
+                return Math.max(1, value.length);
+            }
+        };
+    }
+
+    public static synchronized AlbumArtLoader getInstance() {
+        if (instance == null) {
+            instance = new AlbumArtLoader();
+        }
+        return instance;
+    }
+
+    // =========================
+    // CACHE
+    // =========================
+    @Nullable
+    public byte[] getCached(String artKey) {
+        if (artKey == null) return null;
+        byte[] art = cache.get(artKey);
+        return art == NO_ART ? null : art;
+    }
+
+    // =========================
+    // LOAD
+    // =========================
+    public void load(String artKey, Callback callback) {
+        if (artKey == null) {
+            callback.onArtLoaded(null, null);
+            return;
+        }
+
+        byte[] cached = cache.get(artKey);
+        if (cached != null) {
+            callback.onArtLoaded(artKey, cached == NO_ART ? null : cached);
+            return;
+        }
+
+        executor.execute(() -> {
+            byte[] art = readEmbeddedPicture(artKey);
+            cache.put(artKey, art != null ? art : NO_ART);
+
+            mainHandler.post(() -> callback.onArtLoaded(artKey, art));
+        });
+    }
+
+    /**
+     * Blocking variant of {@link #load} for callers already running on a
+     * background thread. Shares the same cache.
+     */
+    @WorkerThread
+    @Nullable
+    public byte[] loadSync(String artKey) {
+        if (artKey == null) return null;
+
+        byte[] cached = cache.get(artKey);
+        if (cached != null) {
+            return cached == NO_ART ? null : cached;
+        }
+
+        byte[] art = readEmbeddedPicture(artKey);
+        cache.put(artKey, art != null ? art : NO_ART);
+        return art;
+    }
+
+    // Tanpa cache: dipakai juga oleh ThumbnailLoader yang punya cache sendiri
+    @WorkerThread
+    @Nullable
+    static byte[] readEmbeddedPicture(String path) {
+        if (path == null) return null;
+
+        // MP3/FLAC/M4A: baca langsung bagian gambar dari file
+        try (RandomAccessFile raf = new RandomAccessFile(path, "r");
+             FileChannel channel = raf.getChannel()) {
+
+            TagReader.Tags tags = TagReader.read(channel);
+            if (tags != null && !tags.isPictureUnreadable()) {
+                return TagReader.readPicture(channel, tags);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Lanjut ke MediaMetadataRetriever
+        }
+
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(path);
+            return retriever.getEmbeddedPicture();
+        } catch (Exception e) {
+            return null;
+        } finally {
+            try {
+                retriever.release();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.anji4cp.musicplayer;
+
+import android.content.Context;
+import android.media.AudioManager;
+import android.media.MediaPlayer;
+import android.media.audiofx.Equalizer;
+
+/**
+ * Audio effects bound to one audio session for the lifetime of the app.
+ * Every MediaPlayer joins the same session, so the native Equalizer is
+ * created once and keeps its preset and band levels across track changes.
+ *
+ * Effect calls run on PlayerManager's playback thread; the level getters
+ * only read cached values and may be called from the main thread.
+ */
+public class AudioEffectChain {
+
+    private final int audioSessionId;
+
+    private Equalizer equalizer;
+    private volatile short[] bandLevels;
+    private volatile short minLevel;
+    private volatile short maxLevel;
+    private int currentPreset = -1;
+
+    public AudioEffectChain(Context context) {
+        AudioManager audioManager =
+                (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+
+        audioSessionId = audioManager != null
+                ? audioManager.generateAudioSessionId()
+                : AudioManager.ERROR;
+    }
+
+    public int getAudioSessionId() {
+        return audioSessionId;
+    }
+
+    // =========================
+    // ATTACH
+    // =========================
+
+    // Harus dipanggil saat player IDLE (sebelum setDataSource)
+    public void attach(MediaPlayer player) {
+        if (audioSessionId == AudioManager.ERROR) return;
+
+        player.setAudioSessionId(audioSessionId);
+        ensureCreated();
+    }
+
+    public void ensureCreated() {
+        if (equalizer != null || audioSessionId == AudioManager.ERROR) return;
+
+        try {
+            equalizer = new Equalizer(0, audioSessionId);
+            equalizer.setEnabled(true);
+
+            short[] range = equalizer.getBandLevelRange();
+            minLevel = range[0];
+            maxLevel = range[1];
+
+            short bands = equalizer.getNumberOfBands();
+
+            if (bandLevels == null) {
+                bandLevels = new short[bands];
+                readBandLevels();
+            } else {
+                // Dibuat ulang setelah release → pakai level terakhir
+                for (short i = 0; i < bands && i < bandLevels.length; i++) {
+                    equalizer.setBandLevel(i, bandLevels[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            equalizer = null;
+        }
+    }
+
+    // =========================
+    // EQUALIZER
+    // =========================
+    public void usePreset(short preset) {
+        if (equalizer == null) return;
+
+        equalizer.usePreset(preset);
+        currentPreset = preset;
+
+        // Level band berubah karena preset, baca sekali
+        readBandLevels();
+    }
+
+    public int getCurrentPreset() {
+        return currentPreset;
+    }
+
+    public void setBandLevel(short band, short level) {
+        if (equalizer == null || bandLevels == null || band >= bandLevels.length) return;
+
+        equalizer.setBandLevel(band, level);
+        bandLevels[band] = level;
+    }
+
+    public short getBandLevel(short band) {
+        return bandLevels != null && band < bandLevels.length ? bandLevels[band] : 0;
+    }
+
+    public short getMinLevel() {
+        return minLevel;
+    }
+
+    public short getMaxLevel() {
+        return maxLevel;
+    }
+
+    private void readBandLevels() {
+        for (short i = 0; i < bandLevels.length; i++) {
+            bandLevels[i] = equalizer.getBandLevel(i);
+        }
+    }
+
+    public void release() {
+        if (equalizer != null) {
+            equalizer.release();
+            equalizer = null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.anji4cp.musicplayer;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+public class BitmapUtils {
+
+    // Decode dengan inSampleSize: baca ukuran dulu, lalu decode sekecil mungkin
+    public static Bitmap decodeSampled(byte[] data, int reqWidth, int reqHeight) {
+        if (data == null || data.length == 0) return null;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+
+        options.inSampleSize = calculateInSampleSize(
+                options.outWidth, options.outHeight, reqWidth, reqHeight);
+        options.inJustDecodeBounds = false;
+
+        return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    }
+
+    public static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+
+        if (reqWidth <= 0 || reqHeight <= 0) return inSampleSize;
+
+        while ((width / (inSampleSize * 2)) >= reqWidth
+                && (height / (inSampleSize * 2)) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+}
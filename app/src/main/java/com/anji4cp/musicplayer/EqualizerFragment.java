@@ -2,6 +2,9 @@ package com.anji4cp.musicplayer;
 
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -20,6 +23,15 @@ public class EqualizerFragment extends Fragment {
     private static final String KEY_BAND_PREFIX = "band_";
     private static final int PRESET_CUSTOM = 5;
 
+    private static final int BAND_COUNT = 3;
+
+    // Simpan ke prefs setelah slider diam selama ini
+    private static final long SAVE_IDLE_MS = 500;
+
+    // Tiap frame level bergerak sebagian dari sisa jarak ke target
+    private static final float SMOOTHING = 0.35f;
+    private static final int SNAP_THRESHOLD_MB = 10;
+
     private PlayerManager playerManager;
     private SharedPreferences prefs;
 
@@ -29,7 +41,23 @@ public class EqualizerFragment extends Fragment {
     private short minEQ;
     private short maxEQ;
 
-    private boolean isRestoringState = false;
+    // Pilihan terakhir, dari pengguna maupun dari kode. setSelection memanggil
+    // listener belakangan (setelah layout), jadi pilihan yang sama diabaikan
+    private int lastSelectedPreset = -1;
+
+    // Level yang diminta slider vs level yang sudah dikirim ke native
+    private final short[] targetLevels = new short[BAND_COUNT];
+    private final short[] appliedLevels = new short[BAND_COUNT];
+    private boolean frameScheduled = false;
+    private boolean savePending = false;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable saveRunnable = this::saveState;
+
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> {
+        frameScheduled = false;
+        stepBandLevels();
+    };
 
     private final String[] presets = {
             "Normal",
@@ -58,23 +86,41 @@ public class EqualizerFragment extends Fragment {
         seekTreble = view.findViewById(R.id.seekTreble);
         spinnerPreset = view.findViewById(R.id.spinnerPreset);
 
+        // Aktif setelah efek dibuat di thread playback
+        setControlsEnabled(false);
+
+        setupPresetSpinner();
+        setupSeekBars();
+
         // INIT EQ (GLOBAL)
-        playerManager.initEqualizer();
+        playerManager.initEqualizer(() -> {
+            if (getView() != null) onEqualizerReady();
+        });
+
+        // Setelah initEqualizer: preset diterapkan ke efek yang sudah ada
+        restoreState();
+
+        return view;
+    }
 
+    // Rentang level baru valid setelah efek dibuat
+    private void onEqualizerReady() {
         minEQ = playerManager.getMinEQ();
         maxEQ = playerManager.getMaxEQ();
 
-        boolean enabled = playerManager.isPlayerReady();
+        seekBass.setMax(maxEQ - minEQ);
+        seekMid.setMax(maxEQ - minEQ);
+        seekTreble.setMax(maxEQ - minEQ);
+
+        setControlsEnabled(playerManager.isPlayerReady());
+        refreshSliders();
+    }
+
+    private void setControlsEnabled(boolean enabled) {
         seekBass.setEnabled(enabled);
         seekMid.setEnabled(enabled);
         seekTreble.setEnabled(enabled);
         spinnerPreset.setEnabled(enabled);
-
-        setupPresetSpinner();
-        setupSeekBars();
-        restoreState();
-
-        return view;
     }
 
     // =========================
@@ -88,8 +134,6 @@ public class EqualizerFragment extends Fragment {
 
     private void setupSeekBar(SeekBar seekBar, short band) {
 
-        seekBar.setMax(maxEQ - minEQ);
-
         seekBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
 
             @Override
@@ -101,27 +145,28 @@ public class EqualizerFragment extends Fragment {
                 if (!fromUser) return;
                 if (!playerManager.isPlayerReady()) return;
 
-                short level = (short) (progress + minEQ);
-                playerManager.setBandLevel(band, level);
+                // Native & prefs tidak disentuh di sini, hanya target
+                targetLevels[band] = (short) (progress + minEQ);
+                scheduleFrame();
 
                 // AUTO → CUSTOM
                 if (spinnerPreset.getSelectedItemPosition() != PRESET_CUSTOM) {
-                    isRestoringState = true;
+                    lastSelectedPreset = PRESET_CUSTOM;
                     spinnerPreset.setSelection(PRESET_CUSTOM);
-                    isRestoringState = false;
-
-                    prefs.edit()
-                            .putInt(KEY_PRESET, PRESET_CUSTOM)
-                            .apply();
                 }
 
-                prefs.edit()
-                        .putInt(KEY_BAND_PREFIX + band, level)
-                        .apply();
+                handler.removeCallbacks(saveRunnable);
+                handler.postDelayed(saveRunnable, SAVE_IDLE_MS);
+                savePending = true;
             }
 
             @Override public void onStartTrackingTouch(SeekBar seekBar) {}
-            @Override public void onStopTrackingTouch(SeekBar seekBar) {}
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                handler.removeCallbacks(saveRunnable);
+                saveState();
+            }
         });
     }
 
@@ -148,17 +193,16 @@ public class EqualizerFragment extends Fragment {
                             int position,
                             long id) {
 
-                        if (isRestoringState) return;
+                        if (position == lastSelectedPreset) return;
+                        lastSelectedPreset = position;
 
                         if (position != PRESET_CUSTOM) {
-                            playerManager.applyPreset((short) position);
+                            applyPreset(position);
+                        } else {
+                            // Level tetap milik slider, tidak dibaca ulang
+                            handler.removeCallbacks(saveRunnable);
+                            saveState();
                         }
-
-                        prefs.edit()
-                                .putInt(KEY_PRESET, position)
-                                .apply();
-
-                        refreshSliders();
                     }
 
                     @Override public void onNothingSelected(
@@ -167,6 +211,20 @@ public class EqualizerFragment extends Fragment {
         );
     }
 
+    // Level band baru terbaca setelah preset diterapkan
+    private void applyPreset(int preset) {
+        playerManager.applyPreset((short) preset, () -> {
+            if (getView() != null) onPresetChanged();
+        });
+    }
+
+    private void onPresetChanged() {
+        refreshSliders();
+
+        handler.removeCallbacks(saveRunnable);
+        saveState();
+    }
+
     private void refreshSliders() {
         updateSlider(seekBass, (short) 0);
         updateSlider(seekMid, (short) 1);
@@ -175,21 +233,97 @@ public class EqualizerFragment extends Fragment {
 
     private void updateSlider(SeekBar seekBar, short band) {
         short level = playerManager.getBandLevel(band);
+        targetLevels[band] = level;
+        appliedLevels[band] = level;
         seekBar.setProgress(level - minEQ);
     }
 
+    // =========================
+    // SMOOTHING (PER FRAME)
+    // =========================
+    private void scheduleFrame() {
+        if (frameScheduled) return;
+        frameScheduled = true;
+        Choreographer.getInstance().postFrameCallback(frameCallback);
+    }
+
+    // Maksimal satu setBandLevel per band per frame
+    private void stepBandLevels() {
+        boolean pending = false;
+
+        for (short band = 0; band < BAND_COUNT; band++) {
+            int diff = targetLevels[band] - appliedLevels[band];
+            if (diff == 0) continue;
+
+            short next;
+            if (Math.abs(diff) <= SNAP_THRESHOLD_MB) {
+                next = targetLevels[band];
+            } else {
+                next = (short) (appliedLevels[band] + Math.round(diff * SMOOTHING));
+                pending = true;
+            }
+
+            appliedLevels[band] = next;
+            playerManager.setBandLevel(band, next);
+        }
+
+        if (pending) {
+            scheduleFrame();
+        }
+    }
+
+    private void applyTargetsNow() {
+        for (short band = 0; band < BAND_COUNT; band++) {
+            if (appliedLevels[band] != targetLevels[band]) {
+                appliedLevels[band] = targetLevels[band];
+                playerManager.setBandLevel(band, targetLevels[band]);
+            }
+        }
+    }
+
+    // =========================
+    // SAVE (SEKALI PER DRAG)
+    // =========================
+    private void saveState() {
+        savePending = false;
+
+        SharedPreferences.Editor editor = prefs.edit()
+                .putInt(KEY_PRESET, spinnerPreset.getSelectedItemPosition());
+
+        for (short band = 0; band < BAND_COUNT; band++) {
+            editor.putInt(KEY_BAND_PREFIX + band, targetLevels[band]);
+        }
+        editor.apply();
+    }
+
     // =========================
     // RESTORE
     // =========================
     private void restoreState() {
 
-        isRestoringState = true;
-
         int preset = prefs.getInt(KEY_PRESET, PRESET_CUSTOM);
+        lastSelectedPreset = preset;
         spinnerPreset.setSelection(preset);
 
-        refreshSliders();
+        if (preset != PRESET_CUSTOM) {
+            applyPreset(preset);
+        }
+    }
 
-        isRestoringState = false;
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameScheduled = false;
+        }
+        applyTargetsNow();
+
+        // Drag belum sempat disimpan
+        if (savePending) {
+            handler.removeCallbacks(saveRunnable);
+            saveState();
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,7 @@
 package com.anji4cp.musicplayer;
 
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.os.Bundle;
-import android.os.Handler;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -25,7 +23,41 @@ public class HomeFragment extends Fragment {
     private ImageButton btnPlayPause, btnNext, btnPrevious, btnPlayMode;
 
     private PlayerManager playerManager;
-    private Handler handler = new Handler();
+    private boolean userSeeking = false;
+
+    // Decode cover yang sedang berjalan, dibatalkan saat lagu berganti
+    @Nullable
+    private AlbumArtDecoder.Request artRequest;
+    @Nullable
+    private String shownArtKey;
+
+    // Seek bar mengikuti clock di PlayerManager, tanpa loop sendiri
+    private final PlaybackClock.TickListener tickListener = (position, duration) -> {
+        if (seekBar.getMax() != duration) {
+            seekBar.setMax(duration);
+        }
+        if (!userSeeking) {
+            seekBar.setProgress(position);
+        }
+    };
+
+    // Hanya bagian yang berubah yang digambar ulang
+    private final PlayerManager.PlayerListener playerListener = new PlayerManager.PlayerListener() {
+        @Override
+        public void onTrackChanged(Song song) {
+            updateTrackInfo();
+        }
+
+        @Override
+        public void onPlayStateChanged(boolean playing) {
+            updatePlayButton();
+        }
+
+        @Override
+        public void onPlayModeChanged(int mode) {
+            updatePlayModeUI();
+        }
+    };
 
     @Nullable
     @Override
@@ -50,36 +82,45 @@ public class HomeFragment extends Fragment {
         playerManager = PlayerManager.getInstance(requireContext());
 
         setupControls();
-        updateUI();
-        updatePlayModeUI();
 
         return view;
     }
 
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+
+        // State awal dikirim saat view STARTED
+        playerManager.addPlayerListener(getViewLifecycleOwner(), playerListener);
+    }
+
+    // Tick hanya selama layar terlihat (sama seperti mini player di MainActivity)
+    @Override
+    public void onResume() {
+        super.onResume();
+        playerManager.getClock().addTickListener(tickListener);
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        playerManager.getClock().removeTickListener(tickListener);
+    }
+
     // =========================
     // CONTROLS
     // =========================
     private void setupControls() {
 
-        btnPlayPause.setOnClickListener(v -> {
-            playerManager.togglePlayPause();
-            updatePlayButton();
-        });
+        btnPlayPause.setOnClickListener(v -> playerManager.togglePlayPause());
 
-        btnNext.setOnClickListener(v -> {
-            playerManager.next();
-            updateUI();
-        });
+        btnNext.setOnClickListener(v -> playerManager.next());
 
-        btnPrevious.setOnClickListener(v -> {
-            playerManager.previous();
-            updateUI();
-        });
+        btnPrevious.setOnClickListener(v -> playerManager.previous());
 
         btnPlayMode.setOnClickListener(v -> {
             int mode = (playerManager.getPlayMode() + 1) % 3;
             playerManager.setPlayMode(mode);
-            updatePlayModeUI();
         });
 
         seekBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
@@ -92,18 +133,25 @@ public class HomeFragment extends Fragment {
                 if (!fromUser) return;
                 if (!playerManager.isPlayerReady()) return;
 
-                playerManager.getMediaPlayer().seekTo(progress);
+                playerManager.seekTo(progress);
             }
 
-            @Override public void onStartTrackingTouch(SeekBar seekBar) {}
-            @Override public void onStopTrackingTouch(SeekBar seekBar) {}
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+                userSeeking = true;
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                userSeeking = false;
+            }
         });
     }
 
     // =========================
     // UI UPDATE
     // =========================
-    private void updateUI() {
+    private void updateTrackInfo() {
 
         Song song = playerManager.getCurrentSong();
 
@@ -111,29 +159,62 @@ public class HomeFragment extends Fragment {
             tvTitle.setText(song.getTitle());
             tvArtist.setText(song.getArtist());
 
-            if (song.getAlbumArt() != null) {
-                Bitmap bitmap = BitmapFactory.decodeByteArray(
-                        song.getAlbumArt(), 0, song.getAlbumArt().length);
-                imgAlbumArt.setImageBitmap(bitmap);
-            } else {
-                imgAlbumArt.setImageResource(R.drawable.default_album_art);
-            }
+            showAlbumArt(song.getArtKey());
 
             seekBar.setMax(playerManager.getDuration());
-            updateSeekBar();
+            seekBar.setProgress(playerManager.getClock().getPosition());
 
         } else {
             tvTitle.setText("No song playing");
             tvArtist.setText("");
-            imgAlbumArt.setImageResource(R.drawable.default_album_art);
+            showAlbumArt(null);
             seekBar.setProgress(0);
         }
+    }
+
+    private void showAlbumArt(@Nullable String artKey) {
+        if (artKey != null && artKey.equals(shownArtKey)) return;
+        shownArtKey = artKey;
 
-        updatePlayButton();
+        if (artRequest != null) {
+            artRequest.cancel();
+            artRequest = null;
+        }
+
+        if (artKey == null) {
+            imgAlbumArt.setImageResource(R.drawable.default_album_art);
+            return;
+        }
+
+        int width = targetSize(imgAlbumArt.getWidth(), imgAlbumArt.getLayoutParams().width);
+        int height = targetSize(imgAlbumArt.getHeight(), imgAlbumArt.getLayoutParams().height);
+
+        AlbumArtDecoder decoder = AlbumArtDecoder.getInstance();
+        Bitmap cached = decoder.getCached(artKey, width, height);
+        if (cached != null) {
+            imgAlbumArt.setImageBitmap(cached);
+            return;
+        }
+
+        imgAlbumArt.setImageResource(R.drawable.default_album_art);
+        artRequest = decoder.decode(artKey, width, height, this::onAlbumArtDecoded);
     }
-    public void refreshUI() {
-        updateUI();
+
+    private void onAlbumArtDecoded(String artKey, @Nullable Bitmap bitmap) {
+        artRequest = null;
+        if (getView() == null || bitmap == null) return;
+        if (!artKey.equals(shownArtKey)) return;
+
+        imgAlbumArt.setImageBitmap(bitmap);
     }
+
+    // Ukuran view sebelum layout = ukuran di XML (260dp)
+    private int targetSize(int measured, int layoutParam) {
+        if (measured > 0) return measured;
+        if (layoutParam > 0) return layoutParam;
+        return getResources().getDisplayMetrics().widthPixels;
+    }
+
     private void updatePlayButton() {
         btnPlayPause.setImageResource(
                 playerManager.isPlaying()
@@ -155,20 +236,14 @@ public class HomeFragment extends Fragment {
         }
     }
 
-    // =========================
-    // SEEK BAR LOOP
-    // =========================
-    private void updateSeekBar() {
-        seekBar.setProgress(playerManager.getCurrentPosition());
-
-        if (playerManager.isPlaying()) {
-            handler.postDelayed(this::updateSeekBar, 1000);
-        }
-    }
-
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        handler.removeCallbacksAndMessages(null);
+
+        if (artRequest != null) {
+            artRequest.cancel();
+            artRequest = null;
+        }
+        shownArtKey = null;
     }
 }
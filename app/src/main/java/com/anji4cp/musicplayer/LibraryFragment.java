@@ -1,37 +1,74 @@
 package com.anji4cp.musicplayer;
 
-import android.Manifest;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
-import android.media.MediaMetadataRetriever;
-import android.net.Uri;
-import android.os.Build;
 import android.os.Bundle;
-import android.provider.MediaStore;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.EditText;
+import android.widget.PopupMenu;
+import android.widget.ProgressBar;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class LibraryFragment extends Fragment {
 
     private static final int REQ_PERMISSION = 101;
 
+    private static final int MENU_PLAY_NEXT = 1;
+    private static final int MENU_ADD_TO_QUEUE = 2;
+
     private RecyclerView recyclerView;
+    private ProgressBar progressScan;
+    private EditText etSearch;
     private SongAdapter adapter;
-    private final List<Song> songList = new ArrayList<>();
+    private String query = "";
 
     private PlayerManager playerManager;
+    private MusicLibrary library;
+
+    // Library dimuat di luar layar ini; fragment hanya menampilkan
+    private final MusicLibrary.Listener libraryListener = new MusicLibrary.Listener() {
+        @Override
+        public void onSongsAdded(List<Song> batch) {
+            applyFilter();
+        }
+
+        @Override
+        public void onSongsReplaced(List<Song> songs) {
+            applyFilter();
+        }
+
+        @Override
+        public void onProgress(int scanned, int total) {
+            progressScan.setMax(total);
+            progressScan.setProgress(scanned);
+        }
+
+        @Override
+        public void onLoadComplete(int total) {
+            progressScan.setVisibility(View.GONE);
+
+            if (library.getSongs().isEmpty()) {
+                Toast.makeText(
+                        requireContext(),
+                        "Tidak ada lagu ditemukan",
+                        Toast.LENGTH_LONG
+                ).show();
+            }
+        }
+    };
 
     @Nullable
     @Override
@@ -44,8 +81,38 @@ public class LibraryFragment extends Fragment {
 
         recyclerView = view.findViewById(R.id.recyclerViewLibrary);
         recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
+        progressScan = view.findViewById(R.id.progressScan);
+        etSearch = view.findViewById(R.id.etSearch);
+
+        // Layar debug tersembunyi
+        view.findViewById(R.id.tvLibraryHeader).setOnLongClickListener(v -> {
+            new MetricsDebugDialog().show(getChildFragmentManager(), MetricsDebugDialog.TAG);
+            return true;
+        });
 
         playerManager = PlayerManager.getInstance(requireContext());
+        library = MusicLibrary.getInstance(requireContext());
+
+        adapter = new SongAdapter(requireContext(), new SongAdapter.OnSongClickListener() {
+            @Override
+            public void onSongClick(Song song) {
+                // Lagu, bukan posisi: list hasil filter ≠ library di player
+                playerManager.playFromLibrary(song);
+            }
+
+            @Override
+            public void onSongLongClick(Song song, View anchor) {
+                showQueueMenu(song, anchor);
+            }
+        });
+        recyclerView.setAdapter(adapter);
+
+        setupSearch();
+
+        // Isi yang sudah dimuat langsung tampil
+        library.addListener(libraryListener);
+        applyFilter();
+        showProgress();
 
         checkPermissionAndLoad();
 
@@ -56,93 +123,100 @@ public class LibraryFragment extends Fragment {
     // PERMISSION & LOAD
     // =========================
     private void checkPermissionAndLoad() {
+        if (MusicLibrary.hasPermission(requireContext())) {
+            library.load();
+            showProgress();
+        } else {
+            requestPermissions(new String[]{MusicLibrary.getRequiredPermission()}, REQ_PERMISSION);
+        }
+    }
 
-        String permission = (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU)
-                ? Manifest.permission.READ_MEDIA_AUDIO
-                : Manifest.permission.READ_EXTERNAL_STORAGE;
+    @Override
+    public void onRequestPermissionsResult(int requestCode,
+                                           @NonNull String[] permissions,
+                                           @NonNull int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+
+        if (requestCode == REQ_PERMISSION
+                && grantResults.length > 0
+                && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
+            library.load();
+            showProgress();
+        }
+    }
 
-        if (ContextCompat.checkSelfPermission(requireContext(), permission)
-                == PackageManager.PERMISSION_GRANTED) {
-            loadSongs();
+    private void showProgress() {
+        if (library.isLoading()) {
+            progressScan.setVisibility(View.VISIBLE);
+            progressScan.setMax(library.getTotal());
+            progressScan.setProgress(library.getScanned());
         } else {
-            requestPermissions(new String[]{permission}, REQ_PERMISSION);
+            progressScan.setVisibility(View.GONE);
         }
     }
 
     // =========================
-    // LOAD SONGS
+    // QUEUE MENU
     // =========================
-    private void loadSongs() {
-
-        Uri uri = MediaStore.Audio.Media.EXTERNAL_CONTENT_URI;
-
-        String[] projection = {
-                MediaStore.Audio.Media.TITLE,
-                MediaStore.Audio.Media.ARTIST,
-                MediaStore.Audio.Media.DATA,
-                MediaStore.Audio.Media.DURATION
-        };
-
-        String selection = MediaStore.Audio.Media.IS_MUSIC + " != 0";
-
-        Cursor cursor = requireContext().getContentResolver().query(
-                uri,
-                projection,
-                selection,
-                null,
-                MediaStore.Audio.Media.TITLE + " ASC"
-        );
-
-        songList.clear();
-
-        if (cursor != null) {
-            while (cursor.moveToNext()) {
-
-                String title = cursor.getString(0);
-                String artist = cursor.getString(1);
-                String path = cursor.getString(2);
-                long duration = cursor.getLong(3);
-
-                byte[] albumArt = getAlbumArt(path);
-
-                songList.add(new Song(title, artist, path, duration, albumArt));
+    private void showQueueMenu(Song song, View anchor) {
+        PopupMenu menu = new PopupMenu(requireContext(), anchor);
+        menu.getMenu().add(0, MENU_PLAY_NEXT, 0, R.string.queue_play_next);
+        menu.getMenu().add(0, MENU_ADD_TO_QUEUE, 1, R.string.queue_add);
+
+        menu.setOnMenuItemClickListener(item -> {
+            if (item.getItemId() == MENU_PLAY_NEXT) {
+                playerManager.playNext(song);
+            } else {
+                playerManager.addToQueue(song);
             }
-            cursor.close();
-        }
+            return true;
+        });
+        menu.show();
+    }
 
-        playerManager.setSongList(songList);
+    // =========================
+    // SEARCH
+    // =========================
+    private void setupSearch() {
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
 
-        if (getActivity() instanceof MainActivity) {
-            ((MainActivity) getActivity()).onSongsReady();
-        }
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
 
-        adapter = new SongAdapter(songList, position -> {
-            playerManager.playSong(position);
+            @Override
+            public void afterTextChanged(Editable s) {
+                query = s.toString();
+                applyFilter();
+            }
         });
+    }
 
-        recyclerView.setAdapter(adapter);
+    // Selalu list baru: adapter menghitung diff-nya di background
+    private void applyFilter() {
+        List<Song> songs = library.getSongs();
+        Set<Long> matchIds = library.search(query);
 
-        if (songList.isEmpty()) {
-            Toast.makeText(
-                    requireContext(),
-                    "Tidak ada lagu ditemukan",
-                    Toast.LENGTH_LONG
-            ).show();
+        List<Song> shown;
+        if (matchIds == null) {
+            shown = new ArrayList<>(songs);
+        } else {
+            shown = new ArrayList<>(matchIds.size());
+            for (Song song : songs) {
+                if (matchIds.contains(song.getId())) {
+                    shown.add(song);
+                }
+            }
         }
+        adapter.submitList(shown);
     }
 
-    // =========================
-    // ALBUM ART
-    // =========================
-    private byte[] getAlbumArt(String path) {
-        try {
-            MediaMetadataRetriever retriever = new MediaMetadataRetriever();
-            retriever.setDataSource(path);
-            byte[] art = retriever.getEmbeddedPicture();
-            retriever.release();
-            return art;
-        } catch (Exception e) {
-            return null;
-        }
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        library.removeListener(libraryListener);
     }
 }
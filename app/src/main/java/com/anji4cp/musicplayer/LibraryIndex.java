@@ -0,0 +1,246 @@
+package com.anji4cp.musicplayer;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent copy of the library, keyed by MediaStore _ID. Each row keeps
+ * the file size and DATE_MODIFIED so a rescan only re-reads what changed.
+ */
+public class LibraryIndex extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "library_index.db";
+    private static final int DB_VERSION = 1;
+
+    private static final String TABLE_TRACKS = "tracks";
+    private static final String TABLE_META = "meta";
+
+    private static final String COL_ID = "id";
+    private static final String COL_TITLE = "title";
+    private static final String COL_ARTIST = "artist";
+    private static final String COL_PATH = "path";
+    private static final String COL_DURATION = "duration";
+    private static final String COL_SIZE = "size";
+    private static final String COL_DATE_MODIFIED = "date_modified";
+
+    private static final String[] SONG_COLUMNS = {COL_ID, COL_TITLE, COL_ARTIST, COL_PATH,
+            COL_DURATION, COL_SIZE, COL_DATE_MODIFIED};
+
+    // Di bawah batas 999 parameter SQLite
+    private static final int ID_CHUNK_SIZE = 500;
+
+    /**
+     * Library order, shared with the MediaStore query in {@link LibraryScanner}
+     * so the first scan and later launches list songs the same way. The ID
+     * breaks ties between equal titles.
+     */
+    public static String sortOrder(String titleColumn, String idColumn) {
+        return titleColumn + " COLLATE NOCASE ASC, " + idColumn + " ASC";
+    }
+
+    public static final String META_MEDIASTORE_VERSION = "mediastore_version";
+    public static final String META_MEDIASTORE_GENERATION = "mediastore_generation";
+
+    private static LibraryIndex instance;
+
+    private LibraryIndex(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+    }
+
+    public static synchronized LibraryIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new LibraryIndex(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_TRACKS + " ("
+                + COL_ID + " INTEGER PRIMARY KEY, "
+                + COL_TITLE + " TEXT, "
+                + COL_ARTIST + " TEXT, "
+                + COL_PATH + " TEXT NOT NULL, "
+                + COL_DURATION + " INTEGER, "
+                + COL_SIZE + " INTEGER, "
+                + COL_DATE_MODIFIED + " INTEGER)");
+
+        db.execSQL("CREATE TABLE " + TABLE_META + " ("
+                + "key TEXT PRIMARY KEY, "
+                + "value TEXT)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Index hanya cache, cukup dibangun ulang
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_TRACKS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_META);
+        onCreate(db);
+    }
+
+    // =========================
+    // READ
+    // =========================
+    public List<Song> loadAll() {
+        List<Song> songs = new ArrayList<>();
+
+        try (Cursor cursor = getReadableDatabase().query(
+                TABLE_TRACKS,
+                SONG_COLUMNS,
+                null, null, null, null,
+                sortOrder(COL_TITLE, COL_ID)
+        )) {
+            while (cursor.moveToNext()) {
+                songs.add(readSong(cursor));
+            }
+        }
+
+        return songs;
+    }
+
+    /** Songs for the given IDs; IDs not in the index are missing from the map. */
+    public Map<Long, Song> loadByIds(long[] ids) {
+        Map<Long, Song> songs = new HashMap<>(ids.length * 2);
+        SQLiteDatabase db = getReadableDatabase();
+
+        for (int start = 0; start < ids.length; start += ID_CHUNK_SIZE) {
+            int end = Math.min(ids.length, start + ID_CHUNK_SIZE);
+
+            StringBuilder selection = new StringBuilder(COL_ID).append(" IN (");
+            String[] args = new String[end - start];
+            for (int i = start; i < end; i++) {
+                selection.append(i == start ? "?" : ",?");
+                args[i - start] = String.valueOf(ids[i]);
+            }
+            selection.append(")");
+
+            try (Cursor cursor = db.query(
+                    TABLE_TRACKS, SONG_COLUMNS, selection.toString(), args,
+                    null, null, null)) {
+                while (cursor.moveToNext()) {
+                    Song song = readSong(cursor);
+                    songs.put(song.getId(), song);
+                }
+            }
+        }
+
+        return songs;
+    }
+
+    private static Song readSong(Cursor cursor) {
+        return new Song(
+                cursor.getLong(0),
+                cursor.getString(1),
+                cursor.getString(2),
+                cursor.getString(3),
+                cursor.getLong(4),
+                cursor.getLong(5),
+                cursor.getLong(6)
+        );
+    }
+
+    public boolean isEmpty() {
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT 1 FROM " + TABLE_TRACKS + " LIMIT 1", null)) {
+            return !cursor.moveToFirst();
+        }
+    }
+
+    // =========================
+    // WRITE
+    // =========================
+    public void upsert(List<Song> songs) {
+        if (songs.isEmpty()) return;
+
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement(
+                "INSERT OR REPLACE INTO " + TABLE_TRACKS + " ("
+                        + COL_ID + ", " + COL_TITLE + ", " + COL_ARTIST + ", "
+                        + COL_PATH + ", " + COL_DURATION + ", " + COL_SIZE + ", "
+                        + COL_DATE_MODIFIED + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+
+        db.beginTransaction();
+        try {
+            for (Song song : songs) {
+                statement.clearBindings();
+                statement.bindLong(1, song.getId());
+                bindNullable(statement, 2, song.getTitle());
+                bindNullable(statement, 3, song.getArtist());
+                statement.bindString(4, song.getPath());
+                statement.bindLong(5, song.getDuration());
+                statement.bindLong(6, song.getSize());
+                statement.bindLong(7, song.getDateModified());
+                statement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+    }
+
+    public void delete(Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement(
+                "DELETE FROM " + TABLE_TRACKS + " WHERE " + COL_ID + " = ?");
+
+        db.beginTransaction();
+        try {
+            for (long id : ids) {
+                statement.bindLong(1, id);
+                statement.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+    }
+
+    public void clear() {
+        getWritableDatabase().delete(TABLE_TRACKS, null, null);
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    // =========================
+    // META
+    // =========================
+    public String getMeta(String key) {
+        try (Cursor cursor = getReadableDatabase().query(
+                TABLE_META,
+                new String[]{"value"},
+                "key = ?",
+                new String[]{key},
+                null, null, null
+        )) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
+    public void putMeta(String key, String value) {
+        ContentValues values = new ContentValues();
+        values.put("key", key);
+        values.put("value", value);
+        getWritableDatabase().insertWithOnConflict(
+                TABLE_META, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+}
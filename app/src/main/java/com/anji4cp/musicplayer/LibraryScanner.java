@@ -0,0 +1,433 @@
+package com.anji4cp.musicplayer;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.MediaStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Scans MediaStore on a background thread and delivers songs to the main
+ * thread in batches, so the first rows are usable long before the scan ends.
+ *
+ * Songs are served from {@link LibraryIndex} first; MediaStore is then only
+ * asked for rows whose size or DATE_MODIFIED no longer match the index.
+ * Rows with missing tags go through {@link MetadataExtractor} before they
+ * are stored.
+ */
+public class LibraryScanner {
+
+    public interface Callback {
+        void onBatch(List<Song> batch);
+        void onProgress(int scanned, int total);
+        void onLibraryChanged(List<Song> songs);
+        void onComplete(int total);
+    }
+
+    // Batch pertama kecil supaya list cepat muncul
+    private static final int FIRST_BATCH_SIZE = 50;
+    private static final int BATCH_SIZE = 500;
+
+    // Batas parameter SQLite untuk "_id IN (...)"
+    private static final int ID_CHUNK_SIZE = 500;
+
+    private static final Uri AUDIO_URI = MediaStore.Audio.Media.EXTERNAL_CONTENT_URI;
+    // Tanpa path lagu tidak bisa diputar, dan kolom path di index NOT NULL:
+    // satu baris seperti itu akan menggagalkan seluruh transaksi upsert
+    private static final String SELECTION_MUSIC = MediaStore.Audio.Media.IS_MUSIC + " != 0"
+            + " AND " + MediaStore.Audio.Media.DATA + " IS NOT NULL";
+    private static final String SORT_ORDER = LibraryIndex.sortOrder(
+            MediaStore.Audio.Media.TITLE, MediaStore.Audio.Media._ID);
+
+    private static final String[] SONG_PROJECTION = {
+            MediaStore.Audio.Media._ID,
+            MediaStore.Audio.Media.TITLE,
+            MediaStore.Audio.Media.ARTIST,
+            MediaStore.Audio.Media.DATA,
+            MediaStore.Audio.Media.DURATION,
+            MediaStore.Audio.Media.SIZE,
+            MediaStore.Audio.Media.DATE_MODIFIED
+    };
+
+    private static final String[] STAMP_PROJECTION = {
+            MediaStore.Audio.Media._ID,
+            MediaStore.Audio.Media.SIZE,
+            MediaStore.Audio.Media.DATE_MODIFIED
+    };
+
+    private final Context context;
+    private final ContentResolver resolver;
+    private final LibraryIndex index;
+    private final MetadataExtractor extractor = new MetadataExtractor();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private Future<?> task;
+
+    // Naik setiap start/cancel, hasil dari scan lama dibuang
+    private volatile int generation = 0;
+
+    public LibraryScanner(Context context) {
+        this.context = context.getApplicationContext();
+        this.resolver = this.context.getContentResolver();
+        this.index = LibraryIndex.getInstance(this.context);
+    }
+
+    // =========================
+    // START / CANCEL
+    // =========================
+    public void start(Callback callback) {
+        cancel();
+        final int scanGeneration = generation;
+        task = executor.submit(() -> scan(scanGeneration, callback));
+    }
+
+    public void cancel() {
+        generation++;
+        if (task != null) {
+            task.cancel(true);
+            task = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+        extractor.shutdown();
+    }
+
+    private boolean isCancelled(int scanGeneration) {
+        return scanGeneration != generation || Thread.currentThread().isInterrupted();
+    }
+
+    // =========================
+    // SCAN (BACKGROUND)
+    // =========================
+    private void scan(int scanGeneration, Callback callback) {
+        try {
+            String version = getMediaStoreVersion();
+            boolean versionChanged = version != null
+                    && !version.equals(index.getMeta(LibraryIndex.META_MEDIASTORE_VERSION));
+
+            long start = Metrics.get().startTimer();
+
+            // Database MediaStore dibuat ulang → _ID lama tidak berlaku
+            if (versionChanged || index.isEmpty()) {
+                fullScan(scanGeneration, callback);
+                if (!isCancelled(scanGeneration)) {
+                    Metrics.get().stopTimer(Metrics.SCAN_FULL, start);
+                }
+            } else {
+                incrementalScan(scanGeneration, callback);
+                if (!isCancelled(scanGeneration)) {
+                    Metrics.get().stopTimer(Metrics.SCAN_INCREMENTAL, start);
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            post(scanGeneration, () -> callback.onComplete(0));
+        }
+    }
+
+    private void fullScan(int scanGeneration, Callback callback) {
+
+        // Diambil sebelum query supaya perubahan selama scan tidak terlewat
+        String generationStamp = getMediaStoreGeneration();
+
+        index.clear();
+
+        int scanned = 0;
+
+        // Judul dari tag file bisa mengubah urutan dibanding MediaStore
+        boolean retitled = false;
+
+        try (Cursor cursor = resolver.query(
+                AUDIO_URI,
+                SONG_PROJECTION,
+                SELECTION_MUSIC,
+                null,
+                SORT_ORDER
+        )) {
+
+            if (cursor != null) {
+                final int total = cursor.getCount();
+                int batchLimit = FIRST_BATCH_SIZE;
+                List<Song> batch = new ArrayList<>(batchLimit);
+
+                while (cursor.moveToNext()) {
+                    if (isCancelled(scanGeneration)) return;
+
+                    batch.add(readSong(cursor));
+                    scanned++;
+
+                    if (batch.size() >= batchLimit) {
+                        List<Song> stored = storeAndDeliver(scanGeneration, callback, batch, scanned, total);
+                        if (stored == null) return;
+                        retitled |= titlesChanged(batch, stored);
+                        batchLimit = BATCH_SIZE;
+                        batch = new ArrayList<>(batchLimit);
+                    }
+                }
+
+                if (!batch.isEmpty()) {
+                    List<Song> stored = storeAndDeliver(scanGeneration, callback, batch, scanned, total);
+                    if (stored == null) return;
+                    retitled |= titlesChanged(batch, stored);
+                }
+            }
+        }
+
+        saveMediaStoreStamp(generationStamp);
+        Metrics.get().add(Metrics.SCAN_FILES, scanned);
+
+        final int finalCount = scanned;
+        if (retitled) {
+            // Kirim ulang dalam urutan index, sama dengan launch berikutnya
+            List<Song> sorted = index.loadAll();
+            post(scanGeneration, () -> {
+                callback.onLibraryChanged(sorted);
+                callback.onComplete(finalCount);
+            });
+        } else {
+            post(scanGeneration, () -> callback.onComplete(finalCount));
+        }
+    }
+
+    private void incrementalScan(int scanGeneration, Callback callback) {
+
+        // 1. Tampilkan isi index dulu
+        List<Song> cached = index.loadAll();
+        final int total = cached.size();
+
+        int offset = 0;
+        int batchLimit = FIRST_BATCH_SIZE;
+        while (offset < total) {
+            if (isCancelled(scanGeneration)) return;
+
+            int end = Math.min(total, offset + batchLimit);
+            List<Song> batch = new ArrayList<>(cached.subList(offset, end));
+            deliverBatch(scanGeneration, callback, batch, end, total);
+
+            offset = end;
+            batchLimit = BATCH_SIZE;
+        }
+
+        // 2. MediaStore tidak berubah sejak scan terakhir
+        String generationStamp = getMediaStoreGeneration();
+        if (generationStamp != null && generationStamp.equals(
+                index.getMeta(LibraryIndex.META_MEDIASTORE_GENERATION))) {
+            post(scanGeneration, () -> callback.onComplete(total));
+            return;
+        }
+
+        // 3. Cari baris baru / berubah / terhapus
+        Map<Long, Song> known = new HashMap<>(total * 2);
+        for (Song song : cached) {
+            known.put(song.getId(), song);
+        }
+
+        List<Long> changedIds = new ArrayList<>();
+
+        try (Cursor cursor = resolver.query(
+                AUDIO_URI,
+                STAMP_PROJECTION,
+                SELECTION_MUSIC,
+                null,
+                null
+        )) {
+            if (cursor != null) {
+                while (cursor.moveToNext()) {
+                    if (isCancelled(scanGeneration)) return;
+
+                    long id = cursor.getLong(0);
+                    long size = cursor.getLong(1);
+                    long dateModified = cursor.getLong(2);
+
+                    Song old = known.remove(id);
+                    if (old == null
+                            || old.getSize() != size
+                            || old.getDateModified() != dateModified) {
+                        changedIds.add(id);
+                    }
+                }
+            }
+        }
+
+        // Sisa di "known" sudah tidak ada di MediaStore
+        List<Long> deletedIds = new ArrayList<>(known.keySet());
+
+        if (!changedIds.isEmpty()) {
+            List<Song> changed = readSongs(scanGeneration, changedIds);
+            if (changed == null) return;
+            Metrics.get().add(Metrics.SCAN_FILES, changed.size());
+
+            changed = completeTags(scanGeneration, changed);
+            if (changed == null) return;
+            index.upsert(changed);
+        }
+        index.delete(deletedIds);
+
+        if (isCancelled(scanGeneration)) return;
+        saveMediaStoreStamp(generationStamp);
+
+        if (changedIds.isEmpty() && deletedIds.isEmpty()) {
+            post(scanGeneration, () -> callback.onComplete(total));
+            return;
+        }
+
+        List<Song> updated = index.loadAll();
+        post(scanGeneration, () -> {
+            callback.onLibraryChanged(updated);
+            callback.onComplete(updated.size());
+        });
+    }
+
+    // Baca ulang hanya baris yang berubah, per potongan ID
+    private List<Song> readSongs(int scanGeneration, List<Long> ids) {
+        List<Song> songs = new ArrayList<>(ids.size());
+
+        for (int start = 0; start < ids.size(); start += ID_CHUNK_SIZE) {
+            if (isCancelled(scanGeneration)) return null;
+
+            List<Long> chunk = ids.subList(start, Math.min(ids.size(), start + ID_CHUNK_SIZE));
+
+            StringBuilder selection = new StringBuilder(SELECTION_MUSIC)
+                    .append(" AND ")
+                    .append(MediaStore.Audio.Media._ID)
+                    .append(" IN (");
+            String[] args = new String[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                selection.append(i == 0 ? "?" : ",?");
+                args[i] = String.valueOf(chunk.get(i));
+            }
+            selection.append(")");
+
+            try (Cursor cursor = resolver.query(
+                    AUDIO_URI,
+                    SONG_PROJECTION,
+                    selection.toString(),
+                    args,
+                    null
+            )) {
+                if (cursor != null) {
+                    while (cursor.moveToNext()) {
+                        songs.add(readSong(cursor));
+                    }
+                }
+            }
+        }
+
+        return songs;
+    }
+
+    // =========================
+    // TAGS
+    // =========================
+
+    // null = scan dibatalkan
+    private List<Song> completeTags(int scanGeneration, List<Song> songs) {
+        try {
+            return extractor.complete(songs, () -> isCancelled(scanGeneration));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // null = scan dibatalkan
+    private List<Song> storeAndDeliver(int scanGeneration, Callback callback,
+                                       List<Song> batch, int scanned, int total) {
+        List<Song> completed = completeTags(scanGeneration, batch);
+        if (completed == null) return null;
+
+        index.upsert(completed);
+        deliverBatch(scanGeneration, callback, completed, scanned, total);
+        return completed;
+    }
+
+    private static boolean titlesChanged(List<Song> before, List<Song> after) {
+        for (int i = 0; i < before.size(); i++) {
+            if (!Objects.equals(before.get(i).getTitle(), after.get(i).getTitle())) return true;
+        }
+        return false;
+    }
+
+    private static Song readSong(Cursor cursor) {
+        return new Song(
+                cursor.getLong(0),
+                cursor.getString(1),
+                cursor.getString(2),
+                cursor.getString(3),
+                cursor.getLong(4),
+                cursor.getLong(5),
+                cursor.getLong(6)
+        );
+    }
+
+    // =========================
+    // MEDIASTORE VERSION
+    // =========================
+    private String getMediaStoreVersion() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return MediaStore.getVersion(context);
+        }
+        return null;
+    }
+
+    // Gabungan generation semua volume eksternal (Android 11+)
+    private String getMediaStoreGeneration() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) return null;
+
+        StringBuilder stamp = new StringBuilder();
+        for (String volume : MediaStore.getExternalVolumeNames(context)) {
+            stamp.append(volume)
+                    .append('=')
+                    .append(MediaStore.getGeneration(context, volume))
+                    .append(';');
+        }
+        return stamp.toString();
+    }
+
+    private void saveMediaStoreStamp(String generationStamp) {
+        String version = getMediaStoreVersion();
+        if (version != null) {
+            index.putMeta(LibraryIndex.META_MEDIASTORE_VERSION, version);
+        }
+
+        if (generationStamp != null) {
+            index.putMeta(LibraryIndex.META_MEDIASTORE_GENERATION, generationStamp);
+        }
+    }
+
+    // =========================
+    // DELIVERY (MAIN THREAD)
+    // =========================
+    private void deliverBatch(int scanGeneration, Callback callback,
+                              List<Song> batch, int scanned, int total) {
+        post(scanGeneration, () -> {
+            callback.onBatch(batch);
+            callback.onProgress(scanned, total);
+        });
+    }
+
+    private void post(int scanGeneration, Runnable action) {
+        mainHandler.post(() -> {
+            if (scanGeneration == generation) {
+                action.run();
+            }
+        });
+    }
+}
@@ -4,7 +4,6 @@ import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
 import android.view.View;
 import android.widget.ImageButton;
 import android.widget.LinearLayout;
@@ -31,7 +30,36 @@ public class MainActivity extends AppCompatActivity {
     private SeekBar miniSeekBar;
 
     private PlayerManager playerManager;
-    private Handler handler = new Handler();
+    private boolean miniUserSeeking = false;
+
+    private final PlaybackClock.TickListener miniTickListener = (position, duration) -> {
+        if (miniPlayer.getVisibility() != View.VISIBLE) return;
+
+        if (miniSeekBar.getMax() != duration) {
+            miniSeekBar.setMax(duration);
+        }
+        if (!miniUserSeeking) {
+            miniSeekBar.setProgress(position);
+        }
+    };
+
+    private final PlayerManager.PlayerListener playerListener = new PlayerManager.PlayerListener() {
+        @Override
+        public void onTrackChanged(Song song) {
+            // Lagu pertama muncul saat sedang di tab selain Home
+            if (song != null && !(getCurrentFragment() instanceof HomeFragment)) {
+                miniPlayer.setVisibility(View.VISIBLE);
+            }
+            if (miniPlayer.getVisibility() == View.VISIBLE) {
+                updateMiniUI();
+            }
+        }
+
+        @Override
+        public void onPlayStateChanged(boolean playing) {
+            updateMiniPlayButton();
+        }
+    };
 
     // Track tab aktif (untuk animasi arah)
     private int currentTabId = R.id.navigation_home;
@@ -41,6 +69,8 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        MetricsDebugDialog.applySavedState(this);
+
         bottomNavigation = findViewById(R.id.bottomNavigation);
 
         miniPlayer = findViewById(R.id.miniPlayer);
@@ -52,6 +82,13 @@ public class MainActivity extends AppCompatActivity {
 
         requestNotificationPermission();
         setupMiniPlayer();
+        playerManager.addPlayerListener(this, playerListener);
+
+        // Lagu terakhir dipulihkan dari snapshot, tidak menunggu scan library
+        playerManager.restoreLastPlayback();
+        if (MusicLibrary.hasPermission(this)) {
+            MusicLibrary.getInstance(this).load();
+        }
 
         // Fragment awal
         loadFragment(new HomeFragment(), false);
@@ -139,17 +176,8 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    public void onSongsReady() {
-
-        playerManager.restoreLastPlayback();
-
-        // Kalau Home sedang aktif → refresh
-        Fragment f = getSupportFragmentManager()
-                .findFragmentById(R.id.fragmentContainer);
-
-        if (f instanceof HomeFragment) {
-            ((HomeFragment) f).refreshUI();
-        }
+    private Fragment getCurrentFragment() {
+        return getSupportFragmentManager().findFragmentById(R.id.fragmentContainer);
     }
 
 
@@ -158,10 +186,7 @@ public class MainActivity extends AppCompatActivity {
     // =========================
     private void setupMiniPlayer() {
 
-        btnMiniPlayPause.setOnClickListener(v -> {
-            playerManager.togglePlayPause();
-            updateMiniPlayButton();
-        });
+        btnMiniPlayPause.setOnClickListener(v -> playerManager.togglePlayPause());
 
         miniSeekBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             @Override
@@ -176,8 +201,15 @@ public class MainActivity extends AppCompatActivity {
                 playerManager.seekTo(progress);
             }
 
-            @Override public void onStartTrackingTouch(SeekBar seekBar) {}
-            @Override public void onStopTrackingTouch(SeekBar seekBar) {}
+            @Override
+            public void onStartTrackingTouch(SeekBar seekBar) {
+                miniUserSeeking = true;
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar seekBar) {
+                miniUserSeeking = false;
+            }
         });
 
         // TAP MINI PLAYER → PINDAH KE HOME
@@ -199,8 +231,9 @@ public class MainActivity extends AppCompatActivity {
         tvMiniTitle.setText(song.getTitle() + " - " + song.getArtist());
         miniSeekBar.setMax(playerManager.getDuration());
 
+        miniSeekBar.setProgress(playerManager.getClock().getPosition());
+
         updateMiniPlayButton();
-        updateMiniSeekBar();
     }
 
     private void updateMiniPlayButton() {
@@ -211,27 +244,16 @@ public class MainActivity extends AppCompatActivity {
         );
     }
 
-
-    private void updateMiniSeekBar() {
-        miniSeekBar.setProgress(playerManager.getCurrentPosition());
-
-        if (playerManager.isPlaying()) {
-            handler.postDelayed(this::updateMiniSeekBar, 1000);
-        }
-    }
-
     @Override
     protected void onResume() {
         super.onResume();
-
-        if (playerManager.getCurrentSong() != null) {
-            updateMiniUI();
-        }
+        playerManager.getClock().addTickListener(miniTickListener);
     }
 
     @Override
     protected void onPause() {
         super.onPause();
+        playerManager.getClock().removeTickListener(miniTickListener);
 
         if (playerManager.isPlayerReady()) {
             playerManager.saveCurrentPosition();
@@ -0,0 +1,154 @@
+package com.anji4cp.musicplayer;
+
+import android.media.MediaMetadataRetriever;
+import android.provider.MediaStore;
+import android.text.TextUtils;
+
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills in tags MediaStore left empty (no title, "&lt;unknown&gt;" artist,
+ * zero duration) by reading the file itself: {@link TagReader} for
+ * MP3/FLAC/M4A, MediaMetadataRetriever for anything else. Files are read
+ * in parallel on an {@link OrderedWorkPool} sized to the device's cores;
+ * a file that takes longer than {@link #FILE_TIMEOUT_MS} keeps its
+ * MediaStore values.
+ */
+public class MetadataExtractor {
+
+    // Satu file rusak tidak boleh menahan scan lebih lama dari ini
+    private static final long FILE_TIMEOUT_MS = 2000;
+
+    private final OrderedWorkPool pool = OrderedWorkPool.forCores(FILE_TIMEOUT_MS);
+
+    public static boolean needsTags(Song song) {
+        return TextUtils.isEmpty(song.getTitle())
+                || TextUtils.isEmpty(song.getArtist())
+                || MediaStore.UNKNOWN_STRING.equals(song.getArtist())
+                || song.getDuration() <= 0;
+    }
+
+    /**
+     * Returns {@code batch} in the same order with incomplete songs
+     * re-tagged, or null when cancelled. Songs that need nothing are passed
+     * through without touching the pool.
+     */
+    @WorkerThread
+    public List<Song> complete(List<Song> batch, OrderedWorkPool.CancelSignal cancel)
+            throws InterruptedException {
+
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (needsTags(batch.get(i))) {
+                positions.add(i);
+            }
+        }
+        if (positions.isEmpty()) return batch;
+
+        List<Song> result = new ArrayList<>(batch);
+        int[] next = {0};
+
+        boolean finished = pool.run(
+                positions.iterator(),
+                position -> timedReadTags(batch.get(position)),
+                position -> batch.get(position),
+                song -> result.set(positions.get(next[0]++), song),
+                cancel
+        );
+
+        return finished ? result : null;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // =========================
+    // READ (POOL THREAD)
+    // =========================
+    private static Song timedReadTags(Song song) {
+        long start = Metrics.get().startTimer();
+        try {
+            return readTags(song);
+        } finally {
+            Metrics.get().stopTimer(Metrics.SCAN_TAG_READ, start);
+        }
+    }
+
+    private static Song readTags(Song song) {
+        if (song.getPath() == null) return song;
+
+        // Format umum dibaca langsung, retriever hanya untuk format lain
+        try {
+            TagReader.Tags tags = TagReader.read(new File(song.getPath()));
+            if (tags != null) {
+                song = merge(song, tags.getTitle(), tags.getArtist(), tags.getDurationMs());
+
+                // Tag sudah dibaca; retriever hanya perlu untuk durasi
+                // (MP3 tanpa TLEN dihitung oleh decoder)
+                if (song.getDuration() > 0) return song;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Lanjut ke MediaMetadataRetriever
+        }
+
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(song.getPath());
+
+            String title = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_TITLE);
+            String artist = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_ARTIST);
+            String duration = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
+
+            return merge(song, title, artist, parseLong(duration));
+        } catch (Exception e) {
+            return song;
+        } finally {
+            try {
+                retriever.release();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    // Nilai dari MediaStore tetap dipakai kalau file juga tidak punya tag
+    static Song merge(Song song, String title, String artist, long duration) {
+        String mergedTitle = TextUtils.isEmpty(song.getTitle()) && !TextUtils.isEmpty(title)
+                ? title
+                : song.getTitle();
+
+        boolean artistMissing = TextUtils.isEmpty(song.getArtist())
+                || MediaStore.UNKNOWN_STRING.equals(song.getArtist());
+        String mergedArtist = artistMissing && !TextUtils.isEmpty(artist)
+                ? artist
+                : song.getArtist();
+
+        long mergedDuration = song.getDuration() <= 0 && duration > 0
+                ? duration
+                : song.getDuration();
+
+        return new Song(
+                song.getId(),
+                mergedTitle,
+                mergedArtist,
+                song.getPath(),
+                mergedDuration,
+                song.getSize(),
+                song.getDateModified()
+        );
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) return 0;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
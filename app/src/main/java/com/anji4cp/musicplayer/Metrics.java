@@ -0,0 +1,234 @@
+package com.anji4cp.musicplayer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide counters and latency histograms for comparing devices.
+ *
+ * Disabled by default. While disabled every call returns after a single
+ * volatile read: {@link #startTimer()} returns 0 and the matching
+ * {@link #stopTimer} ignores it, so call sites need no checks of their own.
+ *
+ * Pure Java; the debug dialog and the dump file live on the Android side.
+ */
+public final class Metrics {
+
+    // =========================
+    // NAMES
+    // =========================
+    public static final String PLAYER_TAP_TO_AUDIO = "player.tap_to_audio";
+    public static final String PLAYER_PREPARE = "player.prepare";
+    public static final String PLAYER_PLAY_SONG = "player.play_song";
+    public static final String PLAYER_ERROR = "player.error";
+    public static final String PLAYER_GAPLESS_HANDOFF = "player.gapless_handoff";
+    public static final String PLAYER_RESTORE_READY = "player.restore_ready";
+    public static final String PLAYER_COMMANDS_MERGED = "player.commands_merged";
+
+    public static final String SCAN_FULL = "scan.full";
+    public static final String SCAN_INCREMENTAL = "scan.incremental";
+    public static final String SCAN_FILES = "scan.files";
+    public static final String SCAN_TAG_READ = "scan.tag_read";
+    public static final String LIBRARY_FIRST_ROWS = "library.first_rows";
+
+    public static final String NOTIFICATION_POST = "notification.post";
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private volatile boolean enabled = false;
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static Metrics get() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void reset() {
+        counters.clear();
+        histograms.clear();
+    }
+
+    // =========================
+    // RECORD
+    // =========================
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    public void add(String name, long delta) {
+        if (!enabled) return;
+        counters.computeIfAbsent(name, key -> new AtomicLong()).addAndGet(delta);
+    }
+
+    /** Start of a timed section, or 0 when metrics are disabled. */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void stopTimer(String name, long startNanos) {
+        if (startNanos == 0 || !enabled) return;
+        recordNanos(name, System.nanoTime() - startNanos);
+    }
+
+    public void recordNanos(String name, long nanos) {
+        if (!enabled || nanos < 0) return;
+        histograms.computeIfAbsent(name, key -> new Histogram()).record(nanos / 1000);
+    }
+
+    public long getCount(String name) {
+        AtomicLong counter = counters.get(name);
+        return counter != null ? counter.get() : 0;
+    }
+
+    public Histogram getHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    // =========================
+    // DUMP
+    // =========================
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+
+        out.append("# counters\n");
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet()) {
+            out.append(entry.getKey()).append(' ').append(entry.getValue().get()).append('\n');
+        }
+
+        out.append("\n# latency (ms): count mean p50 p90 p99 max\n");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram h = entry.getValue();
+            out.append(String.format(Locale.ROOT, "%s %d %.2f %.2f %.2f %.2f %.2f%n",
+                    entry.getKey(),
+                    h.getCount(),
+                    h.getMeanMicros() / 1000.0,
+                    h.percentileMicros(50) / 1000.0,
+                    h.percentileMicros(90) / 1000.0,
+                    h.percentileMicros(99) / 1000.0,
+                    h.getMaxMicros() / 1000.0));
+        }
+        return out.toString();
+    }
+
+    public void writeDump(File file, String header) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            if (header != null) {
+                writer.write(header);
+                writer.write('\n');
+            }
+            writer.write(dump());
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot write " + file);
+        }
+    }
+
+    // =========================
+    // HISTOGRAM
+    // =========================
+
+    /**
+     * Log-linear histogram of microsecond values: exact below 16 µs, then
+     * 8 buckets per power of two (at most 12.5% error). Lock-free and
+     * fixed-size, so recording never allocates.
+     */
+    public static final class Histogram {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int LINEAR_LIMIT = 16;
+
+        // Sampai 2^40 µs (±12 hari), lebih dari itu masuk bucket terakhir
+        private static final int MAX_EXPONENT = 40;
+        private static final int BUCKETS = LINEAR_LIMIT + (MAX_EXPONENT - 3) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        public void record(long micros) {
+            if (micros < 0) return;
+
+            counts.incrementAndGet(bucketOf(micros));
+            count.incrementAndGet();
+            sum.addAndGet(micros);
+            max.accumulateAndGet(micros, Math::max);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getMaxMicros() {
+            return max.get();
+        }
+
+        public double getMeanMicros() {
+            long n = count.get();
+            return n == 0 ? 0 : (double) sum.get() / n;
+        }
+
+        /** Upper bound of the bucket holding the given percentile (0–100). */
+        public long percentileMicros(double percentile) {
+            long total = count.get();
+            if (total == 0) return 0;
+
+            long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100.0);
+            rank = Math.max(1, rank);
+
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        static int bucketOf(long value) {
+            if (value < LINEAR_LIMIT) return (int) value;
+
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            if (exponent >= MAX_EXPONENT) return BUCKETS - 1;
+
+            int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return LINEAR_LIMIT + (exponent - 4) * SUB_BUCKETS + sub;
+        }
+
+        static long upperBoundOf(int bucket) {
+            if (bucket < LINEAR_LIMIT) return bucket;
+
+            int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 4;
+            int sub = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+            long base = 1L << exponent;
+            long width = base >>> SUB_BUCKET_BITS;
+            return base + (sub + 1) * width - 1;
+        }
+    }
+}
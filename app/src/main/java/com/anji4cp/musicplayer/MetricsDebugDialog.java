@@ -0,0 +1,128 @@
+package com.anji4cp.musicplayer;
+
+import android.app.Dialog;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.ScrollView;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
+import androidx.fragment.app.DialogFragment;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Hidden screen (long-press the Library header) showing {@link Metrics},
+ * with switches to enable, reset and export them for device comparisons.
+ */
+public class MetricsDebugDialog extends DialogFragment {
+
+    public static final String TAG = "metrics_debug";
+
+    private static final String PREF_NAME = "debug_settings";
+    private static final String KEY_METRICS_ENABLED = "metrics_enabled";
+
+    private TextView tvDump;
+
+    // Dipanggil sekali saat app dibuka
+    public static void applySavedState(Context context) {
+        Metrics.get().setEnabled(prefs(context).getBoolean(KEY_METRICS_ENABLED, false));
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext()
+                .getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    @NonNull
+    @Override
+    public Dialog onCreateDialog(@Nullable Bundle savedInstanceState) {
+        Context context = requireContext();
+        int padding = Math.round(16 * context.getResources().getDisplayMetrics().density);
+
+        tvDump = new TextView(context);
+        tvDump.setTypeface(Typeface.MONOSPACE);
+        tvDump.setTextSize(11);
+        tvDump.setTextIsSelectable(true);
+        tvDump.setPadding(padding, padding, padding, padding);
+
+        ScrollView scroll = new ScrollView(context);
+        scroll.addView(tvDump);
+
+        AlertDialog dialog = new AlertDialog.Builder(context)
+                .setTitle("Metrics")
+                .setView(scroll)
+                .setPositiveButton("Export", null)
+                .setNegativeButton("Reset", null)
+                .setNeutralButton(toggleLabel(), null)
+                .create();
+
+        // Listener dipasang setelah show supaya tombol tidak menutup dialog
+        dialog.setOnShowListener(d -> {
+            dialog.getButton(AlertDialog.BUTTON_POSITIVE).setOnClickListener(v -> export());
+            dialog.getButton(AlertDialog.BUTTON_NEGATIVE).setOnClickListener(v -> {
+                Metrics.get().reset();
+                refresh();
+            });
+            dialog.getButton(AlertDialog.BUTTON_NEUTRAL).setOnClickListener(v -> toggle());
+            refresh();
+        });
+
+        return dialog;
+    }
+
+    // =========================
+    // ACTIONS
+    // =========================
+    private void toggle() {
+        boolean enabled = !Metrics.get().isEnabled();
+        Metrics.get().setEnabled(enabled);
+        prefs(requireContext()).edit().putBoolean(KEY_METRICS_ENABLED, enabled).apply();
+        refresh();
+    }
+
+    private void export() {
+        File dir = requireContext().getExternalFilesDir("metrics");
+        if (dir == null) {
+            Toast.makeText(requireContext(), "Penyimpanan tidak tersedia", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        File file = new File(dir, "metrics-" + System.currentTimeMillis() + ".txt");
+        try {
+            Metrics.get().writeDump(file, deviceHeader());
+            Toast.makeText(requireContext(), file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Toast.makeText(requireContext(), "Gagal export: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private void refresh() {
+        tvDump.setText(deviceHeader() + "\n\n" + Metrics.get().dump());
+
+        AlertDialog dialog = (AlertDialog) getDialog();
+        if (dialog != null) {
+            Button toggle = dialog.getButton(AlertDialog.BUTTON_NEUTRAL);
+            if (toggle != null) toggle.setText(toggleLabel());
+        }
+    }
+
+    private static String toggleLabel() {
+        return Metrics.get().isEnabled() ? "Matikan" : "Aktifkan";
+    }
+
+    // Supaya hasil dari beberapa HP bisa dibandingkan
+    private static String deviceHeader() {
+        return "# " + Build.MANUFACTURER + " " + Build.MODEL
+                + ", Android " + Build.VERSION.RELEASE + " (API " + Build.VERSION.SDK_INT + ")"
+                + ", enabled=" + Metrics.get().isEnabled();
+    }
+}
@@ -4,6 +4,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 
+// Tombol notifikasi: hanya meneruskan perintah, dijalankan di thread playback
 public class MusicActionReceiver extends BroadcastReceiver {
 
     public static final String ACTION_PLAY_PAUSE = "ACTION_PLAY_PAUSE";
@@ -0,0 +1,207 @@
+package com.anji4cp.musicplayer;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Process-wide song list and its search index. Loaded once in the
+ * background at app start (or as soon as the storage permission is
+ * granted) and shared by the Library screen and {@link PlayerManager}, so
+ * neither playback nor restore waits for the Library tab to be opened.
+ *
+ * Used from the main thread only.
+ */
+public class MusicLibrary {
+
+    // Layar cukup override event yang dibutuhkan
+    public interface Listener {
+        default void onSongsAdded(List<Song> batch) {}
+        default void onSongsReplaced(List<Song> songs) {}
+        default void onProgress(int scanned, int total) {}
+        default void onLoadComplete(int total) {}
+    }
+
+    private static MusicLibrary instance;
+
+    private final LibraryScanner scanner;
+    private final PlayerManager playerManager;
+
+    private final List<Song> songs = new ArrayList<>();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private boolean loadStarted = false;
+    private boolean loaded = false;
+    private int scanned = 0;
+    private int total = 0;
+
+    // Waktu dari mulai load sampai batch pertama siap
+    private long loadStartedAt = 0;
+
+    private MusicLibrary(Context context) {
+        Context appContext = context.getApplicationContext();
+        scanner = new LibraryScanner(appContext);
+        playerManager = PlayerManager.getInstance(appContext);
+    }
+
+    public static MusicLibrary getInstance(Context context) {
+        if (instance == null) {
+            instance = new MusicLibrary(context);
+        }
+        return instance;
+    }
+
+    public static String getRequiredPermission() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                ? Manifest.permission.READ_MEDIA_AUDIO
+                : Manifest.permission.READ_EXTERNAL_STORAGE;
+    }
+
+    public static boolean hasPermission(Context context) {
+        return ContextCompat.checkSelfPermission(context, getRequiredPermission())
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    // =========================
+    // READ
+    // =========================
+    public List<Song> getSongs() {
+        return Collections.unmodifiableList(songs);
+    }
+
+    // null = tanpa filter, lihat SearchIndex
+    public Set<Long> search(String query) {
+        return searchIndex.search(query);
+    }
+
+    public boolean isLoading() {
+        return loadStarted && !loaded;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int getScanned() {
+        return scanned;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    // =========================
+    // LISTENERS
+    // =========================
+    public void addListener(Listener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // =========================
+    // LOAD (SEKALI PER PROSES)
+    // =========================
+    public void load() {
+        if (loadStarted) return;
+        loadStarted = true;
+
+        loadStartedAt = Metrics.get().startTimer();
+        scanner.start(new LibraryScanner.Callback() {
+            @Override
+            public void onBatch(List<Song> batch) {
+                if (songs.isEmpty()) {
+                    Metrics.get().stopTimer(Metrics.LIBRARY_FIRST_ROWS, loadStartedAt);
+                    loadStartedAt = 0;
+                }
+
+                songs.addAll(batch);
+                for (Song song : batch) {
+                    searchIndex.add(song);
+                }
+
+                playerManager.setSongList(songs, false);
+
+                // Tanpa snapshot, lagu terakhir dicari di batch yang sudah masuk
+                if (playerManager.isRestorePending()) {
+                    playerManager.restoreLastPlayback();
+                }
+
+                for (Listener listener : new ArrayList<>(listeners)) {
+                    listener.onSongsAdded(batch);
+                }
+            }
+
+            @Override
+            public void onProgress(int scannedCount, int totalCount) {
+                scanned = scannedCount;
+                total = totalCount;
+
+                for (Listener listener : new ArrayList<>(listeners)) {
+                    listener.onProgress(scannedCount, totalCount);
+                }
+            }
+
+            @Override
+            public void onLibraryChanged(List<Song> updated) {
+                updateSearchIndex(songs, updated);
+
+                songs.clear();
+                songs.addAll(updated);
+
+                // Diikuti onComplete, yang mengirim list ke player
+
+                for (Listener listener : new ArrayList<>(listeners)) {
+                    listener.onSongsReplaced(getSongs());
+                }
+            }
+
+            @Override
+            public void onComplete(int count) {
+                loaded = true;
+                playerManager.setSongList(songs, true);
+
+                for (Listener listener : new ArrayList<>(listeners)) {
+                    listener.onLoadComplete(count);
+                }
+            }
+        });
+    }
+
+    // Index hanya diubah untuk lagu yang hilang, baru, atau tag-nya berubah
+    private void updateSearchIndex(List<Song> oldSongs, List<Song> newSongs) {
+        Map<Long, Song> previous = new HashMap<>(oldSongs.size() * 2);
+        for (Song song : oldSongs) {
+            previous.put(song.getId(), song);
+        }
+
+        for (Song song : newSongs) {
+            Song old = previous.remove(song.getId());
+            if (old == null
+                    || !Objects.equals(old.getTitle(), song.getTitle())
+                    || !Objects.equals(old.getArtist(), song.getArtist())) {
+                searchIndex.add(song);
+            }
+        }
+
+        for (Long removedId : previous.keySet()) {
+            searchIndex.remove(removedId);
+        }
+    }
+}
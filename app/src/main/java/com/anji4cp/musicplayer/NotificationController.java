@@ -0,0 +1,209 @@
+package com.anji4cp.musicplayer;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.v4.media.session.MediaSessionCompat;
+import android.util.LruCache;
+
+import androidx.core.app.NotificationCompat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Owns the playback notification. Intents, actions and the builder are
+ * created once; each update only swaps title, artist, artwork and the
+ * play/pause action, and bursts of updates are coalesced into one post.
+ *
+ * Used from the looper passed to the constructor (PlayerManager's playback
+ * thread).
+ */
+public class NotificationController {
+
+    public static final int NOTIFICATION_ID = 1;
+
+    // Update dalam jendela ini digabung jadi satu notify()
+    private static final long UPDATE_WINDOW_MS = 250;
+
+    private static final int ARTWORK_SIZE_PX = 256;
+    private static final int ARTWORK_CACHE_ENTRIES = 8;
+
+    private final Context context;
+    private final NotificationManager manager;
+    private final Handler handler;
+    private final ExecutorService decodeExecutor = Executors.newSingleThreadExecutor();
+
+    private final NotificationCompat.Builder builder;
+    private final androidx.media.app.NotificationCompat.MediaStyle mediaStyle;
+    private final NotificationCompat.Action prevAction;
+    private final NotificationCompat.Action playAction;
+    private final NotificationCompat.Action pauseAction;
+    private final NotificationCompat.Action nextAction;
+
+    private final LruCache<String, Bitmap> artworkCache = new LruCache<>(ARTWORK_CACHE_ENTRIES);
+
+    // State terbaru yang belum tentu sudah diposting
+    private String title;
+    private String artist;
+    private String artKey;
+    private boolean playing;
+
+    private boolean updateScheduled = false;
+    private long lastPostTime = 0;
+
+    // Dibaca PlaybackService (main thread) untuk startForeground
+    private volatile Notification lastNotification;
+
+    private final Runnable postRunnable = this::post;
+
+    public NotificationController(Context context, Looper looper) {
+        this.context = context.getApplicationContext();
+        this.handler = new Handler(looper);
+        this.manager = (NotificationManager)
+                this.context.getSystemService(Context.NOTIFICATION_SERVICE);
+
+        NotificationUtils.createChannel(this.context);
+
+        Intent openIntent = new Intent(this.context, MainActivity.class);
+        PendingIntent contentIntent = PendingIntent.getActivity(
+                this.context,
+                0,
+                openIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        prevAction = new NotificationCompat.Action(
+                android.R.drawable.ic_media_previous, "Prev",
+                broadcast(MusicActionReceiver.ACTION_PREVIOUS, 1));
+        playAction = new NotificationCompat.Action(
+                android.R.drawable.ic_media_play, "Play",
+                broadcast(MusicActionReceiver.ACTION_PLAY_PAUSE, 2));
+        pauseAction = new NotificationCompat.Action(
+                android.R.drawable.ic_media_pause, "Pause",
+                broadcast(MusicActionReceiver.ACTION_PLAY_PAUSE, 2));
+        nextAction = new NotificationCompat.Action(
+                android.R.drawable.ic_media_next, "Next",
+                broadcast(MusicActionReceiver.ACTION_NEXT, 3));
+
+        mediaStyle = new androidx.media.app.NotificationCompat.MediaStyle()
+                .setShowActionsInCompactView(0, 1, 2);
+
+        builder = new NotificationCompat.Builder(this.context, NotificationUtils.CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.ic_media_play)
+                .setContentIntent(contentIntent)
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                .setOnlyAlertOnce(true)
+                .setStyle(mediaStyle);
+    }
+
+    private PendingIntent broadcast(String action, int requestCode) {
+        Intent intent = new Intent(context, MusicActionReceiver.class);
+        intent.setAction(action);
+        return PendingIntent.getBroadcast(
+                context, requestCode, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    // =========================
+    // UPDATE
+    // =========================
+    public void update(Song song, boolean isPlaying) {
+        if (song == null) return;
+
+        title = song.getTitle();
+        artist = song.getArtist();
+        playing = isPlaying;
+
+        if (artKey == null || !artKey.equals(song.getArtKey())) {
+            artKey = song.getArtKey();
+            loadArtwork(artKey);
+        }
+
+        schedule();
+    }
+
+    // null saat service berhenti; notifikasi yang sedang tampil ikut diperbarui
+    public void setMediaSession(MediaSessionCompat.Token token) {
+        mediaStyle.setMediaSession(token);
+        if (lastNotification != null) schedule();
+    }
+
+    public Notification getLastNotification() {
+        return lastNotification;
+    }
+
+    public void cancel() {
+        handler.removeCallbacks(postRunnable);
+        updateScheduled = false;
+        lastNotification = null;
+
+        if (manager != null) {
+            manager.cancel(NOTIFICATION_ID);
+        }
+    }
+
+    private void schedule() {
+        if (updateScheduled) return;
+        updateScheduled = true;
+
+        // Update pertama setelah diam langsung tampil, sisanya digabung
+        long elapsed = SystemClock.uptimeMillis() - lastPostTime;
+        long delay = Math.max(0, UPDATE_WINDOW_MS - elapsed);
+        handler.postDelayed(postRunnable, delay);
+    }
+
+    private void post() {
+        updateScheduled = false;
+        lastPostTime = SystemClock.uptimeMillis();
+
+        builder.setContentTitle(title)
+                .setContentText(artist)
+                .setOngoing(playing)
+                .setLargeIcon(artKey != null ? artworkCache.get(artKey) : null);
+
+        builder.clearActions();
+        builder.addAction(prevAction)
+                .addAction(playing ? pauseAction : playAction)
+                .addAction(nextAction);
+
+        if (manager != null) {
+            long start = Metrics.get().startTimer();
+            lastNotification = builder.build();
+            manager.notify(NOTIFICATION_ID, lastNotification);
+            Metrics.get().stopTimer(Metrics.NOTIFICATION_POST, start);
+        }
+    }
+
+    // =========================
+    // ARTWORK
+    // =========================
+    private void loadArtwork(String key) {
+        if (key == null || artworkCache.get(key) != null) return;
+
+        AlbumArtLoader.getInstance().load(key, (loadedKey, art) -> {
+            if (art == null) return;
+
+            decodeExecutor.execute(() -> {
+                Bitmap bitmap = BitmapUtils.decodeSampled(art, ARTWORK_SIZE_PX, ARTWORK_SIZE_PX);
+                if (bitmap == null) return;
+
+                handler.post(() -> {
+                    artworkCache.put(loadedKey, bitmap);
+
+                    // Lagu masih sama → perbarui notifikasi
+                    if (loadedKey.equals(artKey)) {
+                        schedule();
+                    }
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,208 @@
+package com.anji4cp.musicplayer;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Runs a blocking step over many inputs on a fixed pool and hands the
+ * results back in input order.
+ *
+ * At most {@code maxInFlight} items are queued or running at once; the
+ * calling thread waits for the oldest one before submitting more, so a
+ * slow consumer never piles up work. Each item gets {@code timeoutMs} of
+ * run time; an item that overruns is interrupted and replaced by its
+ * fallback, and the pool grows by one thread until the stuck worker
+ * returns so one bad input cannot stall the rest.
+ */
+public class OrderedWorkPool {
+
+    public interface Worker<I, O> {
+        O process(I input) throws Exception;
+    }
+
+    /** Result used when {@link Worker#process} throws or times out. */
+    public interface Fallback<I, O> {
+        O onFailure(I input);
+    }
+
+    /** Polled between items; returning true stops the run early. */
+    public interface CancelSignal {
+        boolean isCancelled();
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final int maxInFlight;
+    private final long timeoutMs;
+
+    // Worker yang melewati timeout tapi belum kembali
+    private int stuckWorkers = 0;
+
+    public OrderedWorkPool(int threads, int maxInFlight, long timeoutMs) {
+        this.threads = Math.max(1, threads);
+        this.maxInFlight = Math.max(this.threads, maxInFlight);
+        this.timeoutMs = timeoutMs;
+
+        executor = new ThreadPoolExecutor(
+                this.threads, this.threads * 2,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Pool sized to the device's cores with two queued items per thread. */
+    public static OrderedWorkPool forCores(long timeoutMs) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new OrderedWorkPool(cores, cores * 2, timeoutMs);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    // =========================
+    // RUN
+    // =========================
+
+    /**
+     * Processes {@code inputs} and passes each result to {@code output} on
+     * the calling thread, in input order. Returns false when cancelled
+     * (pending items are abandoned) and true when every input was emitted.
+     */
+    public <I, O> boolean run(Iterator<I> inputs,
+                              Worker<I, O> worker,
+                              Fallback<I, O> fallback,
+                              Consumer<O> output,
+                              CancelSignal cancel) throws InterruptedException {
+
+        ArrayDeque<Item<I, O>> pending = new ArrayDeque<>(maxInFlight);
+
+        try {
+            while (inputs.hasNext() || !pending.isEmpty()) {
+                if (cancel.isCancelled()) return false;
+
+                // Isi jendela sampai penuh, lalu tunggu yang paling tua
+                while (pending.size() < maxInFlight && inputs.hasNext()) {
+                    Item<I, O> item = new Item<>(inputs.next(), worker);
+                    executor.execute(item);
+                    pending.add(item);
+                }
+
+                Item<I, O> oldest = pending.poll();
+                output.accept(await(oldest, fallback, cancel));
+            }
+            return true;
+
+        } finally {
+            for (Item<I, O> item : pending) {
+                item.cancel(true);
+            }
+        }
+    }
+
+    private <I, O> O await(Item<I, O> item, Fallback<I, O> fallback, CancelSignal cancel)
+            throws InterruptedException {
+
+        long pollMs = Math.max(1, Math.min(50, timeoutMs / 4));
+
+        while (true) {
+            try {
+                return item.get(pollMs, TimeUnit.MILLISECONDS);
+
+            } catch (TimeoutException e) {
+                if (cancel.isCancelled()) {
+                    item.cancel(true);
+                    return fallback.onFailure(item.input);
+                }
+                if (item.hasOverrun(timeoutMs) && markStuck(item)) {
+                    return fallback.onFailure(item.input);
+                }
+
+            } catch (ExecutionException | CancellationException e) {
+                return fallback.onFailure(item.input);
+            }
+        }
+    }
+
+    // =========================
+    // STUCK WORKERS
+    // =========================
+    // false = item ternyata baru saja selesai, hasilnya masih bisa dipakai
+    private boolean markStuck(Item<?, ?> item) {
+        synchronized (this) {
+            if (item.isDone()) return false;
+
+            // Thread yang tertahan diganti sementara
+            item.stuck = true;
+            stuckWorkers++;
+            resize();
+        }
+        item.cancel(true);
+        return true;
+    }
+
+    private synchronized void onStuckWorkerReturned() {
+        stuckWorkers--;
+        resize();
+    }
+
+    // Antrean tak terbatas → hanya core size yang menentukan jumlah thread
+    private void resize() {
+        executor.setCorePoolSize(Math.min(threads * 2, threads + stuckWorkers));
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // =========================
+    // ITEM
+    // =========================
+    private final class Item<I, O> extends FutureTask<O> {
+        final I input;
+
+        // 0 = belum mulai jalan
+        volatile long startedAtNanos = 0;
+
+        // Dijaga oleh lock OrderedWorkPool
+        boolean stuck = false;
+
+        Item(I input, Worker<I, O> worker) {
+            super(() -> worker.process(input));
+            this.input = input;
+        }
+
+        @Override
+        public void run() {
+            startedAtNanos = System.nanoTime();
+            try {
+                super.run();
+            } finally {
+                synchronized (OrderedWorkPool.this) {
+                    if (stuck) {
+                        onStuckWorkerReturned();
+                    }
+                }
+            }
+        }
+
+        // Waktu antre tidak dihitung, hanya waktu jalan
+        boolean hasOverrun(long timeoutMs) {
+            long started = startedAtNanos;
+            return started != 0
+                    && System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.anji4cp.musicplayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Ordered play queue, independent of the library list.
+ *
+ * Stored as an implicit treap (a randomized balanced tree ordered by
+ * position, each node holding its subtree size), so lookup by position,
+ * insert, remove and move are all O(log n) expected and no edit copies
+ * the queue. Nodes are {@link Entry} objects that keep their identity
+ * while they stay in the queue: the cursor is an entry, not an index,
+ * so it stays on the same item whatever is inserted or moved around it.
+ *
+ * Not thread-safe; PlayerManager drives it from a single thread.
+ */
+public class PlayQueue {
+
+    /** One item of the queue. The same song may appear in several entries. */
+    public static final class Entry {
+        private final Song song;
+        private final int priority;
+
+        private Entry left;
+        private Entry right;
+        private Entry parent;
+        private int size = 1;
+        private boolean queued = false;
+
+        private Entry(Song song, int priority) {
+            this.song = song;
+            this.priority = priority;
+        }
+
+        public Song getSong() {
+            return song;
+        }
+
+        // false setelah dihapus dari antrean
+        public boolean isQueued() {
+            return queued;
+        }
+    }
+
+    private final Random random;
+
+    private Entry root;
+    private Entry current;
+
+    // Hasil split, disimpan di field supaya split tidak alokasi
+    private Entry splitLeft;
+    private Entry splitRight;
+
+    public PlayQueue() {
+        this(new Random());
+    }
+
+    public PlayQueue(Random random) {
+        this.random = random;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    // =========================
+    // CURSOR
+    // =========================
+    public Entry getCurrent() {
+        return current;
+    }
+
+    public Song getCurrentSong() {
+        return current != null ? current.song : null;
+    }
+
+    /** Position of the cursor, or -1 when there is none. O(log n). */
+    public int getCurrentIndex() {
+        return current != null ? indexOf(current) : -1;
+    }
+
+    public void setCurrent(Entry entry) {
+        current = entry != null && entry.queued ? entry : null;
+    }
+
+    public void setCurrentIndex(int index) {
+        current = index >= 0 && index < size() ? entryAt(index) : null;
+    }
+
+    // =========================
+    // READ
+    // =========================
+    public Song get(int index) {
+        return entryAt(index).song;
+    }
+
+    public Entry entryAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size());
+        }
+
+        Entry node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /** Position of {@code entry}, or -1 if it is not in this queue. O(log n). */
+    public int indexOf(Entry entry) {
+        if (entry == null || !entry.queued) return -1;
+
+        int index = size(entry.left);
+        for (Entry node = entry; node.parent != null; node = node.parent) {
+            if (node == node.parent.right) {
+                index += size(node.parent.left) + 1;
+            }
+        }
+        return index;
+    }
+
+    /** First position holding the song with this ID, or -1. O(n). */
+    public int indexOfSongId(long id) {
+        int index = 0;
+        for (Entry entry = first(); entry != null; entry = next(entry)) {
+            if (entry.song.getId() == id) return index;
+            index++;
+        }
+        return -1;
+    }
+
+    public Entry first() {
+        Entry node = root;
+        if (node == null) return null;
+        while (node.left != null) node = node.left;
+        return node;
+    }
+
+    /** Entry after {@code entry} in queue order, or null at the end. Amortized O(1). */
+    public Entry next(Entry entry) {
+        if (entry.right != null) {
+            Entry node = entry.right;
+            while (node.left != null) node = node.left;
+            return node;
+        }
+
+        Entry node = entry;
+        while (node.parent != null && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    private Entry previous(Entry entry) {
+        if (entry.left != null) {
+            Entry node = entry.left;
+            while (node.right != null) node = node.right;
+            return node;
+        }
+
+        Entry node = entry;
+        while (node.parent != null && node == node.parent.left) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    // Antrean = awal dari list (dibandingkan per ID), mis. saat batch scan bertambah
+    public boolean isPrefixOf(List<Song> songs) {
+        if (size() > songs.size()) return false;
+
+        int i = 0;
+        for (Entry entry = first(); entry != null; entry = next(entry)) {
+            if (entry.song.getId() != songs.get(i++).getId()) return false;
+        }
+        return true;
+    }
+
+    public long[] songIds() {
+        long[] ids = new long[size()];
+        int i = 0;
+        for (Entry entry = first(); entry != null; entry = next(entry)) {
+            ids[i++] = entry.song.getId();
+        }
+        return ids;
+    }
+
+    public List<Song> toList() {
+        List<Song> songs = new ArrayList<>(size());
+        for (Entry entry = first(); entry != null; entry = next(entry)) {
+            songs.add(entry.song);
+        }
+        return songs;
+    }
+
+    // =========================
+    // EDIT
+    // =========================
+
+    /** Replaces the whole queue in O(n) and clears the cursor. */
+    public void setAll(List<Song> songs) {
+        detachAll();
+
+        // Cartesian tree dari kiri ke kanan: tiap node cukup dibandingkan dengan tumpukan kanan
+        Entry[] stack = new Entry[Math.max(songs.size(), 1)];
+        int top = -1;
+
+        for (Song song : songs) {
+            Entry node = newEntry(song);
+
+            Entry last = null;
+            while (top >= 0 && stack[top].priority < node.priority) {
+                last = stack[top--];
+            }
+            node.left = last;
+            if (last != null) last.parent = node;
+            if (top >= 0) {
+                stack[top].right = node;
+                node.parent = stack[top];
+            }
+            stack[++top] = node;
+        }
+
+        root = top >= 0 ? stack[0] : null;
+        computeSizes(root);
+    }
+
+    public void clear() {
+        detachAll();
+    }
+
+    public Entry append(Song song) {
+        return insert(size(), song);
+    }
+
+    public void appendAll(List<Song> songs) {
+        for (Song song : songs) {
+            append(song);
+        }
+    }
+
+    /** Inserts right after the cursor, or at the end when there is no cursor. */
+    public Entry insertAfterCurrent(Song song) {
+        return insert(current != null ? indexOf(current) + 1 : size(), song);
+    }
+
+    public Entry insert(int index, Song song) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size());
+        }
+
+        Entry entry = newEntry(song);
+        link(index, entry);
+        return entry;
+    }
+
+    /**
+     * Removes the item at {@code index}. Removing the current item moves the
+     * cursor to the item after it (or before it, at the end of the queue).
+     */
+    public Song remove(int index) {
+        Entry entry = entryAt(index);
+        remove(entry);
+        return entry.song;
+    }
+
+    public void remove(Entry entry) {
+        if (entry == null || !entry.queued) return;
+
+        if (entry == current) {
+            Entry after = next(entry);
+            current = after != null ? after : previous(entry);
+        }
+        unlink(entry);
+        entry.queued = false;
+    }
+
+    /** Moves an item; its entry (and the cursor, if on it) stays the same. */
+    public void move(int from, int to) {
+        if (to < 0 || to >= size()) {
+            throw new IndexOutOfBoundsException("Index " + to + ", size " + size());
+        }
+        if (from == to) return;
+
+        Entry entry = entryAt(from);
+        unlink(entry);
+        link(to, entry);
+    }
+
+    // =========================
+    // TREAP
+    // =========================
+    private Entry newEntry(Song song) {
+        Entry entry = new Entry(song, random.nextInt());
+        entry.queued = true;
+        return entry;
+    }
+
+    private void link(int index, Entry entry) {
+        entry.left = null;
+        entry.right = null;
+        entry.parent = null;
+        entry.size = 1;
+
+        split(root, index);
+        Entry left = splitLeft;
+        Entry right = splitRight;
+        if (left != null) left.parent = null;
+        if (right != null) right.parent = null;
+
+        root = merge(merge(left, entry), right);
+        root.parent = null;
+    }
+
+    // Ganti node dengan gabungan kedua anaknya, lalu kurangi size ke atas
+    private void unlink(Entry entry) {
+        if (entry.left != null) entry.left.parent = null;
+        if (entry.right != null) entry.right.parent = null;
+
+        Entry replacement = merge(entry.left, entry.right);
+        Entry parent = entry.parent;
+        if (replacement != null) replacement.parent = parent;
+
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.left == entry) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+
+        for (Entry node = parent; node != null; node = node.parent) {
+            node.size--;
+        }
+
+        entry.left = null;
+        entry.right = null;
+        entry.parent = null;
+        entry.size = 1;
+    }
+
+    // splitLeft = `count` item pertama, splitRight = sisanya
+    private void split(Entry node, int count) {
+        if (node == null) {
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+
+        if (size(node.left) >= count) {
+            split(node.left, count);
+            node.left = splitRight;
+            if (splitRight != null) splitRight.parent = node;
+            update(node);
+            splitRight = node;
+        } else {
+            split(node.right, count - size(node.left) - 1);
+            node.right = splitLeft;
+            if (splitLeft != null) splitLeft.parent = node;
+            update(node);
+            splitLeft = node;
+        }
+    }
+
+    private Entry merge(Entry a, Entry b) {
+        if (a == null) return b;
+        if (b == null) return a;
+
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            a.right.parent = a;
+            update(a);
+            return a;
+        } else {
+            b.left = merge(a, b.left);
+            b.left.parent = b;
+            update(b);
+            return b;
+        }
+    }
+
+    private void detachAll() {
+        for (Entry entry = first(); entry != null; entry = next(entry)) {
+            entry.queued = false;
+        }
+        root = null;
+        current = null;
+    }
+
+    private static int computeSizes(Entry node) {
+        if (node == null) return 0;
+        node.size = 1 + computeSizes(node.left) + computeSizes(node.right);
+        return node.size;
+    }
+
+    private static void update(Entry node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Entry node) {
+        return node != null ? node.size : 0;
+    }
+}
@@ -0,0 +1,105 @@
+package com.anji4cp.musicplayer;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local estimate of the playback position. PlayerManager re-anchors it on
+ * every state change or seek; in between the position is extrapolated from
+ * the elapsed time, so views can tick every frame without querying the
+ * native player.
+ *
+ * Main thread only; PlayerManager posts the anchors from its playback
+ * thread.
+ */
+public class PlaybackClock {
+
+    public interface TickListener {
+        void onTick(int positionMs, int durationMs);
+    }
+
+    private int anchorPosition = 0;
+    private long anchorTime = 0;
+    private boolean running = false;
+    private int duration = 0;
+
+    private final List<TickListener> listeners = new ArrayList<>();
+    private boolean frameScheduled = false;
+
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> {
+        frameScheduled = false;
+        dispatchTick();
+
+        if (running) {
+            scheduleFrame();
+        }
+    };
+
+    // =========================
+    // ANCHOR
+    // =========================
+    public void update(int position, boolean running, int duration) {
+        this.anchorPosition = Math.max(0, position);
+        this.anchorTime = SystemClock.elapsedRealtime();
+        this.running = running;
+        this.duration = Math.max(0, duration);
+
+        // Satu tick juga saat pause, supaya seek saat pause tetap tampil
+        scheduleFrame();
+    }
+
+    public int getPosition() {
+        if (!running) return anchorPosition;
+
+        long elapsed = SystemClock.elapsedRealtime() - anchorTime;
+        long position = anchorPosition + elapsed;
+        if (duration > 0 && position > duration) {
+            position = duration;
+        }
+        return (int) position;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // =========================
+    // SUBSCRIBE
+    // =========================
+    public void addTickListener(TickListener listener) {
+        if (listeners.contains(listener)) return;
+
+        listeners.add(listener);
+        listener.onTick(getPosition(), duration);
+        scheduleFrame();
+    }
+
+    public void removeTickListener(TickListener listener) {
+        listeners.remove(listener);
+
+        if (listeners.isEmpty() && frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameScheduled = false;
+        }
+    }
+
+    private void scheduleFrame() {
+        if (frameScheduled || listeners.isEmpty()) return;
+        frameScheduled = true;
+        Choreographer.getInstance().postFrameCallback(frameCallback);
+    }
+
+    private void dispatchTick() {
+        int position = getPosition();
+        for (TickListener listener : new ArrayList<>(listeners)) {
+            listener.onTick(position, duration);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.anji4cp.musicplayer;
+
+import android.app.Notification;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.os.IBinder;
+import android.support.v4.media.MediaMetadataCompat;
+import android.support.v4.media.session.MediaSessionCompat;
+import android.support.v4.media.session.PlaybackStateCompat;
+
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.ServiceCompat;
+import androidx.core.content.ContextCompat;
+
+/**
+ * Foreground service that keeps the process alive while music plays and
+ * hosts the media session (lock screen, headset buttons, Bluetooth).
+ *
+ * Like the screens, it is only a client of {@link PlayerManager}: commands
+ * from the session are posted to the playback thread, and the session is
+ * updated from the player events on the main thread. Started when playback
+ * starts; leaves the foreground on pause and stops with the notification.
+ */
+public class PlaybackService extends Service {
+
+    private static final String SESSION_TAG = "MusicPlayer";
+
+    private static final long SESSION_ACTIONS = PlaybackStateCompat.ACTION_PLAY
+            | PlaybackStateCompat.ACTION_PAUSE
+            | PlaybackStateCompat.ACTION_PLAY_PAUSE
+            | PlaybackStateCompat.ACTION_SKIP_TO_NEXT
+            | PlaybackStateCompat.ACTION_SKIP_TO_PREVIOUS
+            | PlaybackStateCompat.ACTION_SEEK_TO
+            | PlaybackStateCompat.ACTION_STOP;
+
+    private PlayerManager playerManager;
+    private MediaSessionCompat session;
+    private final PlaybackStateCompat.Builder stateBuilder =
+            new PlaybackStateCompat.Builder().setActions(SESSION_ACTIONS);
+
+    private boolean foreground = false;
+
+    public static void start(Context context) {
+        try {
+            ContextCompat.startForegroundService(context, new Intent(context, PlaybackService.class));
+        } catch (IllegalStateException e) {
+            // Android 12+: app di background (mis. auto-advance) → tanpa service
+            e.printStackTrace();
+        }
+    }
+
+    public static void stop(Context context) {
+        context.stopService(new Intent(context, PlaybackService.class));
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        playerManager = PlayerManager.getInstance(this);
+
+        session = new MediaSessionCompat(this, SESSION_TAG);
+        session.setCallback(sessionCallback);
+        session.setActive(true);
+        playerManager.setMediaSession(session.getSessionToken());
+
+        playerManager.addPlayerListener(playerListener);
+        updateMetadata(playerManager.getCurrentSong());
+        updatePlaybackState();
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        // Wajib setelah startForegroundService, walau lagu sudah di-pause lagi
+        enterForeground();
+        if (!playerManager.isPlaying()) {
+            exitForeground();
+        }
+        return START_NOT_STICKY;
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    @Override
+    public void onTaskRemoved(Intent rootIntent) {
+        // App ditutup dari recent saat pause → tidak ada alasan tetap hidup
+        if (!playerManager.isPlaying()) {
+            stopSelf();
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        playerManager.removePlayerListener(playerListener);
+        playerManager.setMediaSession(null);
+
+        session.setActive(false);
+        session.release();
+
+        ServiceCompat.stopForeground(this, ServiceCompat.STOP_FOREGROUND_REMOVE);
+        foreground = false;
+        super.onDestroy();
+    }
+
+    // =========================
+    // FOREGROUND
+    // =========================
+    private void enterForeground() {
+        Notification notification = playerManager.getNotification();
+        if (notification == null) {
+            // Notifikasi lengkap menyusul dari NotificationController (ID sama)
+            NotificationUtils.createChannel(this);
+            Song song = playerManager.getCurrentSong();
+            notification = new NotificationCompat.Builder(this, NotificationUtils.CHANNEL_ID)
+                    .setSmallIcon(android.R.drawable.ic_media_play)
+                    .setContentTitle(song != null ? song.getTitle() : null)
+                    .setContentText(song != null ? song.getArtist() : null)
+                    .setOnlyAlertOnce(true)
+                    .build();
+        }
+
+        try {
+            ServiceCompat.startForeground(this, NotificationController.NOTIFICATION_ID,
+                    notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_MEDIA_PLAYBACK);
+            foreground = true;
+        } catch (IllegalStateException e) {
+            // Android 12+: dari background tanpa pengecualian → tetap jalan tanpa foreground
+            e.printStackTrace();
+        }
+    }
+
+    // Notifikasi tetap tampil (bisa di-swipe), service boleh dihentikan sistem
+    private void exitForeground() {
+        if (!foreground) return;
+        ServiceCompat.stopForeground(this, ServiceCompat.STOP_FOREGROUND_DETACH);
+        foreground = false;
+    }
+
+    // =========================
+    // SESSION
+    // =========================
+    private final MediaSessionCompat.Callback sessionCallback = new MediaSessionCompat.Callback() {
+        @Override
+        public void onPlay() {
+            playerManager.play();
+        }
+
+        @Override
+        public void onPause() {
+            playerManager.pause();
+        }
+
+        @Override
+        public void onSkipToNext() {
+            playerManager.next();
+        }
+
+        @Override
+        public void onSkipToPrevious() {
+            playerManager.previous();
+        }
+
+        @Override
+        public void onSeekTo(long pos) {
+            playerManager.seekTo((int) pos);
+        }
+
+        @Override
+        public void onStop() {
+            playerManager.stopPlaybackAndNotification();
+        }
+    };
+
+    private final PlayerManager.PlayerListener playerListener = new PlayerManager.PlayerListener() {
+        @Override
+        public void onTrackChanged(Song song) {
+            updateMetadata(song);
+            updatePlaybackState();
+        }
+
+        @Override
+        public void onPlayStateChanged(boolean playing) {
+            updatePlaybackState();
+            if (!playing) exitForeground();
+        }
+
+        @Override
+        public void onPlayerStateChanged(int state) {
+            updatePlaybackState();
+        }
+    };
+
+    private void updateMetadata(Song song) {
+        if (song == null) {
+            session.setMetadata(null);
+            return;
+        }
+
+        session.setMetadata(new MediaMetadataCompat.Builder()
+                .putString(MediaMetadataCompat.METADATA_KEY_TITLE, song.getTitle())
+                .putString(MediaMetadataCompat.METADATA_KEY_ARTIST, song.getArtist())
+                .putLong(MediaMetadataCompat.METADATA_KEY_DURATION, song.getDuration())
+                .build());
+    }
+
+    private void updatePlaybackState() {
+        int state;
+        if (playerManager.getCurrentSong() == null) {
+            state = PlaybackStateCompat.STATE_NONE;
+        } else if (playerManager.getPlayerState() == PlayerManager.STATE_ERROR) {
+            state = PlaybackStateCompat.STATE_ERROR;
+        } else if (playerManager.getPlayerState() == PlayerManager.STATE_PREPARING) {
+            state = PlaybackStateCompat.STATE_BUFFERING;
+        } else {
+            state = playerManager.isPlaying()
+                    ? PlaybackStateCompat.STATE_PLAYING
+                    : PlaybackStateCompat.STATE_PAUSED;
+        }
+
+        session.setPlaybackState(stateBuilder
+                .setState(state, playerManager.getCurrentPosition(), 1f)
+                .build());
+    }
+}
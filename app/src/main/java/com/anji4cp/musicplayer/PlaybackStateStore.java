@@ -0,0 +1,155 @@
+package com.anji4cp.musicplayer;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-memory playback state that is written to disk in batches. Setters
+ * only mark the state dirty; a background thread commits it every few
+ * seconds while playing and whenever {@link #flush()} is called.
+ *
+ * Setters and flush() are called from the looper passed to the constructor
+ * (PlayerManager's playback thread); auto flush runs there too.
+ */
+public class PlaybackStateStore {
+
+    public interface PositionProvider {
+        int getCurrentPosition();
+    }
+
+    private static final String PREF_PLAYER = "player_state";
+    private static final String KEY_TRACK_ID = "last_track_id";
+    private static final String KEY_TRACK_PATH = "last_track_path";
+    private static final String KEY_LAST_POSITION = "last_position";
+    private static final String KEY_PLAY_MODE = "play_mode";
+
+    // Index lama (sebelum ID lagu disimpan), hanya dibaca untuk migrasi
+    private static final String KEY_LEGACY_INDEX = "last_index";
+
+    // Maksimal posisi yang hilang saat proses mati
+    private static final long FLUSH_INTERVAL_MS = 3000;
+
+    private final SharedPreferences prefs;
+    private final PositionProvider positionProvider;
+
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+    private final Handler handler;
+
+    private long trackId;
+    private String trackPath;
+    private int position;
+    private int playMode;
+    private final int legacyIndex;
+
+    private boolean dirty = false;
+    private boolean autoFlushRunning = false;
+
+    private final Runnable autoFlush = new Runnable() {
+        @Override
+        public void run() {
+            setPosition(positionProvider.getCurrentPosition());
+            flush();
+            handler.postDelayed(this, FLUSH_INTERVAL_MS);
+        }
+    };
+
+    public PlaybackStateStore(Context context, Looper looper, PositionProvider positionProvider) {
+        this.handler = new Handler(looper);
+        this.prefs = context.getApplicationContext()
+                .getSharedPreferences(PREF_PLAYER, Context.MODE_PRIVATE);
+        this.positionProvider = positionProvider;
+
+        trackId = prefs.getLong(KEY_TRACK_ID, -1);
+        trackPath = prefs.getString(KEY_TRACK_PATH, null);
+        position = prefs.getInt(KEY_LAST_POSITION, 0);
+        playMode = prefs.getInt(KEY_PLAY_MODE, PlayerManager.PLAY_MODE_NORMAL);
+        legacyIndex = prefs.getInt(KEY_LEGACY_INDEX, -1);
+    }
+
+    // =========================
+    // READ
+    // =========================
+    public long getTrackId() {
+        return trackId;
+    }
+
+    public String getTrackPath() {
+        return trackPath;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public int getPlayMode() {
+        return playMode;
+    }
+
+    public int getLegacyIndex() {
+        return legacyIndex;
+    }
+
+    // =========================
+    // WRITE (IN MEMORY)
+    // =========================
+    public void setTrack(Song song) {
+        if (song.getId() == trackId && Objects.equals(song.getPath(), trackPath)) return;
+
+        trackId = song.getId();
+        trackPath = song.getPath();
+        position = 0;
+        dirty = true;
+    }
+
+    public void setPosition(int position) {
+        if (this.position == position) return;
+        this.position = position;
+        dirty = true;
+    }
+
+    public void setPlayMode(int playMode) {
+        if (this.playMode == playMode) return;
+        this.playMode = playMode;
+        dirty = true;
+    }
+
+    // =========================
+    // FLUSH
+    // =========================
+    public void flush() {
+        if (!dirty) return;
+        dirty = false;
+
+        final long id = trackId;
+        final String path = trackPath;
+        final int pos = position;
+        final int mode = playMode;
+
+        io.execute(() -> prefs.edit()
+                .putLong(KEY_TRACK_ID, id)
+                .putString(KEY_TRACK_PATH, path)
+                .putInt(KEY_LAST_POSITION, pos)
+                .putInt(KEY_PLAY_MODE, mode)
+                .remove(KEY_LEGACY_INDEX)
+                .commit());
+    }
+
+    // Selama lagu diputar, posisi diambil dan disimpan berkala
+    public void startAutoFlush() {
+        if (autoFlushRunning) return;
+        autoFlushRunning = true;
+        handler.postDelayed(autoFlush, FLUSH_INTERVAL_MS);
+    }
+
+    public void stopAutoFlush() {
+        if (!autoFlushRunning) return;
+        autoFlushRunning = false;
+        handler.removeCallbacks(autoFlush);
+    }
+}
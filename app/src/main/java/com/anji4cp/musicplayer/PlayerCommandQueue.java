@@ -0,0 +1,134 @@
+package com.anji4cp.musicplayer;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Single-consumer queue of player commands. Commands may be added from any
+ * thread and run in order on the executor (PlayerManager's playback
+ * thread). Commands that are still waiting are merged:
+ * <ul>
+ *   <li>consecutive next/previous become one skip by the net offset,</li>
+ *   <li>consecutive seeks keep only the last target.</li>
+ * </ul>
+ * So a burst of taps while the player is busy costs one track change, not
+ * one per tap. A skip carries the time of the tap it was requested by
+ * (the latest one after merging), so latency can be measured from the tap
+ * rather than from when the playback thread got to it.
+ */
+public class PlayerCommandQueue {
+
+    public interface Target {
+        // offset > 0 = maju sebanyak offset lagu, < 0 = mundur
+        // requestedAt = Metrics.startTimer() saat tap (0 = tidak diukur)
+        void skip(int offset, long requestedAt);
+        void seek(int positionMs);
+    }
+
+    private static final int TYPE_RUN = 0;
+    private static final int TYPE_SKIP = 1;
+    private static final int TYPE_SEEK = 2;
+
+    private static final class Command {
+        final int type;
+        int value;
+        long requestedAt;
+        final Runnable action;
+
+        Command(int type, int value, long requestedAt, Runnable action) {
+            this.type = type;
+            this.value = value;
+            this.requestedAt = requestedAt;
+            this.action = action;
+        }
+    }
+
+    private final Executor executor;
+    private final Target target;
+
+    private final ArrayDeque<Command> pending = new ArrayDeque<>();
+    private boolean drainScheduled = false;
+
+    private final Runnable drainRunnable = this::drain;
+
+    public PlayerCommandQueue(Executor executor, Target target) {
+        this.executor = executor;
+        this.target = target;
+    }
+
+    // =========================
+    // PRODUCERS (THREAD MANA PUN)
+    // =========================
+    public void run(Runnable action) {
+        enqueue(new Command(TYPE_RUN, 0, 0, action));
+    }
+
+    public void skip(int offset, long requestedAt) {
+        if (offset == 0) return;
+
+        synchronized (this) {
+            Command last = pending.peekLast();
+            if (last != null && last.type == TYPE_SKIP) {
+                last.value += offset;
+                // Pengguna menunggu sejak tap terakhir
+                last.requestedAt = requestedAt;
+                // next lalu previous saling meniadakan
+                if (last.value == 0) pending.removeLast();
+                Metrics.get().increment(Metrics.PLAYER_COMMANDS_MERGED);
+                return;
+            }
+            enqueue(new Command(TYPE_SKIP, offset, requestedAt, null));
+        }
+    }
+
+    public void seek(int positionMs) {
+        synchronized (this) {
+            Command last = pending.peekLast();
+            if (last != null && last.type == TYPE_SEEK) {
+                last.value = positionMs;
+                Metrics.get().increment(Metrics.PLAYER_COMMANDS_MERGED);
+                return;
+            }
+            enqueue(new Command(TYPE_SEEK, positionMs, 0, null));
+        }
+    }
+
+    private synchronized void enqueue(Command command) {
+        pending.addLast(command);
+
+        if (!drainScheduled) {
+            drainScheduled = true;
+            executor.execute(drainRunnable);
+        }
+    }
+
+    // =========================
+    // CONSUMER (THREAD PLAYBACK)
+    // =========================
+    // Perintah yang masuk selama drain ikut dijalankan di putaran yang sama
+    private void drain() {
+        Command command;
+        while ((command = poll()) != null) {
+            switch (command.type) {
+                case TYPE_SKIP:
+                    target.skip(command.value, command.requestedAt);
+                    break;
+                case TYPE_SEEK:
+                    target.seek(command.value);
+                    break;
+                default:
+                    command.action.run();
+                    break;
+            }
+        }
+    }
+
+    // Diambil satu per satu: yang masih antre tetap bisa digabung
+    private synchronized Command poll() {
+        Command command = pending.pollFirst();
+        if (command == null) {
+            drainScheduled = false;
+        }
+        return command;
+    }
+}
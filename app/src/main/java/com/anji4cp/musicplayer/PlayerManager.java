@@ -1,19 +1,37 @@
 package com.anji4cp.musicplayer;
 
 import android.app.Notification;
-import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
 import android.content.SharedPreferences;
 import android.media.MediaPlayer;
-
-import androidx.core.app.NotificationCompat;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.v4.media.session.MediaSessionCompat;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
-
+import java.util.Map;
+
+/**
+ * Owns playback: the queue, both MediaPlayers and the audio effects.
+ *
+ * Every MediaPlayer and effect call runs on one "playback" thread, so the
+ * main thread never waits on prepare, seek or release. Public commands go
+ * through a {@link PlayerCommandQueue} to that thread, where bursts of
+ * skips and seeks are merged, and may be called from anywhere. Listeners
+ * and the {@link PlaybackClock} are updated on the main thread, and the
+ * getters read state published by the playback thread.
+ */
 public class PlayerManager {
 
     private static PlayerManager instance;
@@ -21,9 +39,57 @@ public class PlayerManager {
     private MediaPlayer mediaPlayer;
     private Context context;
 
-    private List<Song> songList = new ArrayList<>();
-    private int currentIndex = -1;
-    private Song currentSong;
+    // =========================
+    // THREADS
+    // =========================
+    // Semua panggilan MediaPlayer & audio effect hanya di thread ini
+    private final HandlerThread playerThread =
+            new HandlerThread("playback", Process.THREAD_PRIORITY_AUDIO);
+    private final Handler playerHandler;
+
+    // Listener & clock UI tetap di main thread
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Semua perintah publik lewat sini, skip & seek beruntun digabung
+    private final PlayerCommandQueue commands;
+
+    // Skip dalam jendela ini dari skip sebelumnya: prepare ditunda,
+    // hanya lagu tujuan terakhir yang benar-benar disiapkan
+    private static final long SKIP_SETTLE_MS = 300;
+    private long lastSkipAt = 0;
+    private final Runnable prepareRunnable = this::prepareCurrentSong;
+
+    // =========================
+    // GAPLESS
+    // =========================
+    // Player kedua untuk lagu berikutnya, diserahkan lewat setNextMediaPlayer
+    private MediaPlayer nextPlayer;
+    private PlayQueue.Entry nextEntry;
+    private boolean nextPlayerAttached = false;
+    private volatile boolean gaplessEnabled = true;
+
+    // =========================
+    // QUEUE
+    // =========================
+    // Antrean terpisah dari list library; cursor-nya tetap valid saat diedit
+    private final PlayQueue queue = new PlayQueue();
+    private List<Song> library = new ArrayList<>();
+
+    // Antrean mengikuti library sampai user mengeditnya sendiri
+    private boolean queueFollowsLibrary = true;
+
+    // Antrean dari snapshot tidak diganti batch scan yang belum lengkap,
+    // sampai scan selesai (atau library berubah)
+    private boolean libraryComplete = false;
+    private boolean holdRestoredQueue = false;
+
+    // Lagu yang dimuat di player (bisa sudah dihapus dari antrean)
+    private volatile Song currentSong;
+
+    // Salinan untuk dibaca dari main thread
+    private volatile int queueSize = 0;
+    private volatile int queuePosition = -1;
+    private volatile int duration = 0;
 
     // =========================
     // PLAY MODE
@@ -31,43 +97,141 @@ public class PlayerManager {
     public static final int PLAY_MODE_NORMAL = 0;
     public static final int PLAY_MODE_SHUFFLE = 1;
     public static final int PLAY_MODE_REPEAT_ONE = 2;
-    private int playMode = PLAY_MODE_NORMAL;
-    private boolean restoredOnce = false;
+    private volatile int playMode = PLAY_MODE_NORMAL;
+
+    // =========================
+    // SHUFFLE
+    // =========================
+    private final ShuffleEngine shuffle = new ShuffleEngine();
+
+    // ID lagu per posisi saat engine terakhir disinkronkan dengan antrean
+    private long[] shuffleIds = new long[0];
+    private boolean shuffleDirty = true;
+
+    // =========================
+    // PLAYER STATE
+    // =========================
+    public static final int STATE_IDLE = 0;
+    public static final int STATE_PREPARING = 1;
+    public static final int STATE_PREPARED = 2;
+    public static final int STATE_STARTED = 3;
+    public static final int STATE_ERROR = 4;
+    private volatile int playerState = STATE_IDLE;
+
+    // =========================
+    // EVENTS
+    // =========================
+    // Layar cukup override event yang dibutuhkan
+    public interface PlayerListener {
+        default void onTrackChanged(Song song) {}
+        default void onPlayStateChanged(boolean playing) {}
+        default void onPlayerStateChanged(int state) {}
+        default void onPlayModeChanged(int mode) {}
+        default void onQueueChanged() {}
+        default void onError(Song song, int what, int extra) {}
+    }
+
+    private final List<PlayerListener> playerListeners = new ArrayList<>();
+
+    // Nilai terakhir yang dikirim, supaya event hanya saat berubah
+    private boolean lastDispatchedPlaying = false;
+
+    // Selama ganti lagu (reset → IDLE → PREPARING) status "playing" tidak
+    // dikirim, supaya UI tidak berkedip dan service tidak keluar foreground
+    private boolean changingTrack = false;
+
+    // Perintah yang datang saat masih preparing, dijalankan setelah siap
+    private volatile boolean playWhenReady = false;
+    private int pendingSeekPosition = -1;
+
+    // Target seek yang belum selesai (seekTo native berjalan async)
+    private int seekInFlight = -1;
+
+    // Posisi untuk UI dihitung di sini, bukan lewat MediaPlayer (main thread)
+    private final PlaybackClock clock = new PlaybackClock();
+
+    // Naik setiap playSong, callback prepare lama diabaikan
+    private int prepareGeneration = 0;
+
+    // 0 = tidak sedang diukur (atau metrics mati)
+    private final Metrics metrics = Metrics.get();
+    private long playRequestedAt = 0;
+    private long prepareStartedAt = 0;
+    private long restoreStartedAt = 0;
 
 
     // =========================
     // PERSIST STATE
     // =========================
     private static final String PREF_PLAYER = "player_state";
-    private static final String KEY_LAST_INDEX = "last_index";
-    private static final String KEY_LAST_POSITION = "last_position";
-    private static final String KEY_PLAY_MODE = "play_mode";
+    private static final String KEY_GAPLESS = "gapless";
 
+    // Pengaturan (jarang berubah)
     private SharedPreferences prefs;
 
+    // Lagu, posisi & mode: ditulis berkala oleh store, bukan per perubahan
+    private final PlaybackStateStore stateStore;
+
+    // Antrean + shuffle: snapshot biner, ditulis setelah antrean diam sebentar
+    private final QueueStore queueStore;
+    private static final long QUEUE_SAVE_DELAY_MS = 2000;
+    private boolean queueDirty = false;
+    private final Runnable saveQueueRunnable = this::saveQueueSnapshot;
+
+    private static final int RESTORE_NOT_STARTED = 0;
+    private static final int RESTORE_LOADING = 1;
+    private static final int RESTORE_NO_SNAPSHOT = 2;
+    private static final int RESTORE_DONE = 3;
+    private volatile int restoreState = RESTORE_NOT_STARTED;
+
+    // Lagu yang disiapkan dari langkah pertama restore
+    private Song restoredTrack;
+
     // =========================
     // EQUALIZER
     // =========================
-    private android.media.audiofx.Equalizer equalizer;
-    private short[] bandLevels;
-    private short minEQ;
-    private short maxEQ;
-    private int currentPreset = -1;
+    // Satu audio session untuk semua player, equalizer dibuat sekali
+    private final AudioEffectChain effectChain;
 
-    private static final int NOTIFICATION_ID = 1;
+    private final NotificationController notificationController;
 
     private PlayerManager(Context context) {
         this.context = context.getApplicationContext();
-        NotificationUtils.createChannel(this.context);
 
-        mediaPlayer = new MediaPlayer();
+        playerThread.start();
+        Looper playerLooper = playerThread.getLooper();
+        playerHandler = new Handler(playerLooper);
+        commands = new PlayerCommandQueue(playerHandler::post, new PlayerCommandQueue.Target() {
+            @Override
+            public void skip(int offset, long requestedAt) {
+                handleSkip(offset, requestedAt);
+            }
+
+            @Override
+            public void seek(int positionMs) {
+                handleSeekTo(positionMs);
+            }
+        });
+
+        notificationController = new NotificationController(this.context, playerLooper);
+        effectChain = new AudioEffectChain(this.context);
 
         prefs = this.context.getSharedPreferences(
                 PREF_PLAYER,
                 Context.MODE_PRIVATE
         );
 
-        playMode = prefs.getInt(KEY_PLAY_MODE, PLAY_MODE_NORMAL);
+        stateStore = new PlaybackStateStore(this.context, playerLooper, this::samplePosition);
+        queueStore = new QueueStore(this.context, playerLooper);
+
+        playMode = stateStore.getPlayMode();
+        gaplessEnabled = prefs.getBoolean(KEY_GAPLESS, true);
+
+        // Dibuat di thread playback supaya callback-nya juga datang ke sana
+        playerHandler.post(() -> {
+            mediaPlayer = new MediaPlayer();
+            effectChain.attach(mediaPlayer);
+        });
     }
 
     public static PlayerManager getInstance(Context context) {
@@ -80,308 +244,1179 @@ public class PlayerManager {
     // =========================
     // BASIC INFO
     // =========================
-    public void setSongList(List<Song> songs) {
-        this.songList = songs;
+    /**
+     * Called again whenever the library list grows or is replaced.
+     *
+     * @param complete false while scan batches are still arriving
+     */
+    public void setSongList(List<Song> songs, boolean complete) {
+        // Disalin: list pemanggil tetap diubah di main thread
+        List<Song> copy = new ArrayList<>(songs);
+        commands.run(() -> handleSetSongList(copy, complete));
+    }
+
+    private void handleSetSongList(List<Song> songs, boolean complete) {
+        this.library = songs;
+        if (complete) libraryComplete = true;
+        if (!queueFollowsLibrary) return;
+
+        // List sebagian tidak boleh menggantikan antrean hasil restore
+        // (urutan shuffle juga akan dipetakan ke list yang terpotong)
+        if (holdRestoredQueue && !complete) return;
+        holdRestoredQueue = false;
+
+        syncQueueWithLibrary();
+        shuffleDirty = true;
+        scheduleQueueSave();
+
+        refreshNextPlayer();
+        dispatchQueueChanged();
+    }
+
+    private void syncQueueWithLibrary() {
+        // Batch scan hanya menambah di belakang → cukup tambahkan sisanya
+        if (queue.isPrefixOf(library)) {
+            queue.appendAll(library.subList(queue.size(), library.size()));
+            findCurrentInQueue();
+            return;
+        }
+
+        // List diganti (rescan): entry baru, cursor dicari lagi lewat ID
+        queue.setAll(library);
+        findCurrentInQueue();
+    }
+
+    // Lagu yang diputar bisa baru muncul di batch berikutnya
+    private void findCurrentInQueue() {
+        if (currentSong != null && queue.getCurrent() == null) {
+            queue.setCurrentIndex(queue.indexOfSongId(currentSong.getId()));
+        }
+    }
+
+    private int indexOfSong(long id) {
+        return queue.indexOfSongId(id);
     }
 
     public Song getCurrentSong() {
         return currentSong;
     }
 
+    // Termasuk lagu yang sedang disiapkan dan akan langsung diputar
     public boolean isPlaying() {
-        return mediaPlayer != null && mediaPlayer.isPlaying();
+        return playerState == STATE_STARTED
+                || (playerState == STATE_PREPARING && playWhenReady);
     }
 
     public int getDuration() {
-        return mediaPlayer != null ? mediaPlayer.getDuration() : 0;
+        return duration;
     }
 
+    // Main thread; perkiraan dari clock, bukan dari MediaPlayer
     public int getCurrentPosition() {
-        return mediaPlayer != null ? mediaPlayer.getCurrentPosition() : 0;
+        return clock.getPosition();
     }
 
-    public MediaPlayer getMediaPlayer() {
-        return mediaPlayer;
+    public int getPlayerState() {
+        return playerState;
     }
 
-    public boolean isPlayerReady() {
+    public PlaybackClock getClock() {
+        return clock;
+    }
+
+    private int readPosition() {
+        if (isPrepared()) {
+            return seekInFlight >= 0 ? seekInFlight : mediaPlayer.getCurrentPosition();
+        }
+        return Math.max(pendingSeekPosition, 0);
+    }
+
+    // Anchor ulang clock dari player; dipanggil saat state berubah / seek
+    private void syncClock() {
+        syncClock(readPosition());
+    }
+
+    private void syncClock(int position) {
+        boolean running = playerState == STATE_STARTED;
+        int length = duration;
+        mainHandler.post(() -> clock.update(position, running, length));
+    }
+
+    // Dipakai store untuk simpan berkala, sekalian koreksi drift clock
+    private int samplePosition() {
+        int position = readPosition();
+        syncClock(position);
+        return position;
+    }
+
+    private boolean isPrepared() {
         return mediaPlayer != null
-                && currentSong != null
-                && mediaPlayer.getAudioSessionId() != -1;
+                && (playerState == STATE_PREPARED || playerState == STATE_STARTED);
+    }
+
+    private void setPlayerState(int state) {
+        if (playerState == state) return;
+        playerState = state;
+        syncClock();
+
+        if (state == STATE_STARTED) {
+            stateStore.startAutoFlush();
+        } else {
+            stateStore.stopAutoFlush();
+        }
+
+        mainHandler.post(() -> {
+            for (PlayerListener listener : new ArrayList<>(playerListeners)) {
+                listener.onPlayerStateChanged(state);
+            }
+        });
+        dispatchPlayStateIfChanged();
+    }
+
+    // =========================
+    // LISTENERS (MAIN THREAD)
+    // =========================
+    public void addPlayerListener(PlayerListener listener) {
+        if (!playerListeners.contains(listener)) {
+            playerListeners.add(listener);
+        }
+    }
+
+    public void removePlayerListener(PlayerListener listener) {
+        playerListeners.remove(listener);
+    }
+
+    /**
+     * Registers a listener that only receives events while {@code owner} is
+     * started. On every start it is brought up to date with the current
+     * track, play state and mode; it is dropped when the owner is destroyed.
+     */
+    public void addPlayerListener(LifecycleOwner owner, PlayerListener listener) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) return;
+        owner.getLifecycle().addObserver(new LifecycleBoundListener(listener));
+    }
+
+    private final class LifecycleBoundListener implements DefaultLifecycleObserver {
+
+        private final PlayerListener listener;
+
+        LifecycleBoundListener(PlayerListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onStart(@NonNull LifecycleOwner owner) {
+            addPlayerListener(listener);
+
+            listener.onTrackChanged(currentSong);
+            listener.onPlayerStateChanged(playerState);
+            listener.onPlayStateChanged(isPlaying());
+            listener.onPlayModeChanged(playMode);
+        }
+
+        @Override
+        public void onStop(@NonNull LifecycleOwner owner) {
+            removePlayerListener(listener);
+        }
+
+        @Override
+        public void onDestroy(@NonNull LifecycleOwner owner) {
+            owner.getLifecycle().removeObserver(this);
+        }
+    }
+
+    // Event dikirim dari thread playback, listener dipanggil di main thread
+    private void dispatchTrackChanged() {
+        publishQueue();
+        Song song = currentSong;
+        mainHandler.post(() -> {
+            for (PlayerListener listener : new ArrayList<>(playerListeners)) {
+                listener.onTrackChanged(song);
+            }
+        });
+    }
+
+    private void dispatchPlayStateIfChanged() {
+        if (changingTrack) return;
+
+        boolean playing = isPlaying();
+        if (playing == lastDispatchedPlaying) return;
+        lastDispatchedPlaying = playing;
+
+        mainHandler.post(() -> {
+            // Service menjaga proses tetap hidup selama lagu diputar
+            if (playing) PlaybackService.start(context);
+
+            for (PlayerListener listener : new ArrayList<>(playerListeners)) {
+                listener.onPlayStateChanged(playing);
+            }
+        });
+    }
+
+    private void dispatchPlayModeChanged() {
+        int mode = playMode;
+        mainHandler.post(() -> {
+            for (PlayerListener listener : new ArrayList<>(playerListeners)) {
+                listener.onPlayModeChanged(mode);
+            }
+        });
+    }
+
+    private void dispatchQueueChanged() {
+        publishQueue();
+        mainHandler.post(() -> {
+            for (PlayerListener listener : new ArrayList<>(playerListeners)) {
+                listener.onQueueChanged();
+            }
+        });
+    }
+
+    private void dispatchError(int what, int extra) {
+        Song song = currentSong;
+        mainHandler.post(() -> {
+            for (PlayerListener listener : new ArrayList<>(playerListeners)) {
+                listener.onError(song, what, extra);
+            }
+        });
+    }
+
+    private void publishQueue() {
+        queueSize = queue.size();
+        queuePosition = queue.getCurrentIndex();
+    }
+
+    // MediaPlayer dibuat bersama lagu pertama di thread playback
+    public boolean isPlayerReady() {
+        return currentSong != null;
     }
 
     // =========================
     // PLAY MODE
     // =========================
     public void setPlayMode(int mode) {
+        commands.run(() -> handleSetPlayMode(mode));
+    }
+
+    private void handleSetPlayMode(int mode) {
         playMode = mode;
-        prefs.edit().putInt(KEY_PLAY_MODE, playMode).apply();
+        stateStore.setPlayMode(playMode);
+        stateStore.flush();
+
+        if (playMode == PLAY_MODE_SHUFFLE && queue.getCurrent() != null) {
+            syncShuffle();
+            shuffle.select(queue.getCurrentIndex());
+        }
+
+        // Lagu berikutnya tergantung mode
+        prepareNextPlayer();
+
+        dispatchPlayModeChanged();
     }
 
     public int getPlayMode() {
         return playMode;
     }
 
+    public void setGaplessEnabled(boolean enabled) {
+        gaplessEnabled = enabled;
+        prefs.edit().putBoolean(KEY_GAPLESS, enabled).apply();
+
+        commands.run(() -> {
+            if (gaplessEnabled) {
+                prepareNextPlayer();
+            } else {
+                releaseNextPlayer();
+            }
+        });
+    }
+
+    public boolean isGaplessEnabled() {
+        return gaplessEnabled;
+    }
+
+    // =========================
+    // QUEUE EDIT
+    // =========================
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    // -1 kalau tidak ada lagu di antrean yang sedang dipilih
+    public int getQueuePosition() {
+        return queuePosition;
+    }
+
+    public void playNext(Song song) {
+        commands.run(() -> handlePlayNext(song));
+    }
+
+    private void handlePlayNext(Song song) {
+        PlayQueue.Entry entry = queue.insertAfterCurrent(song);
+        markQueueEdited();
+
+        // Di mode shuffle juga langsung jadi lagu berikutnya
+        if (playMode == PLAY_MODE_SHUFFLE) {
+            syncShuffle();
+            shuffle.playNext(queue.indexOf(entry));
+        }
+
+        refreshNextPlayer();
+        dispatchQueueChanged();
+    }
+
+    public void addToQueue(Song song) {
+        commands.run(() -> handleAddToQueue(song));
+    }
+
+    private void handleAddToQueue(Song song) {
+        queue.append(song);
+        markQueueEdited();
+
+        refreshNextPlayer();
+        dispatchQueueChanged();
+    }
+
+    public void moveQueueItem(int from, int to) {
+        commands.run(() -> handleMoveQueueItem(from, to));
+    }
+
+    private void handleMoveQueueItem(int from, int to) {
+        if (from < 0 || from >= queue.size() || to < 0 || to >= queue.size()) return;
+
+        queue.move(from, to);
+        markQueueEdited();
+
+        refreshNextPlayer();
+        dispatchQueueChanged();
+    }
+
+    public void removeQueueItem(int index) {
+        commands.run(() -> handleRemoveQueueItem(index));
+    }
+
+    private void handleRemoveQueueItem(int index) {
+        if (index < 0 || index >= queue.size()) return;
+
+        boolean wasCurrent = queue.entryAt(index) == queue.getCurrent();
+        queue.remove(index);
+        markQueueEdited();
+
+        if (!wasCurrent) {
+            refreshNextPlayer();
+        } else if (queue.getCurrent() != null) {
+            // Lagu yang diputar dihapus → lanjut ke lagu penggantinya
+            boolean resume = isPlaying();
+            handlePlaySong(queue.getCurrentIndex(), !resume);
+            if (!resume) stateStore.setTrack(currentSong);
+        } else {
+            stopAndClear();
+        }
+
+        dispatchQueueChanged();
+    }
+
+    private void markQueueEdited() {
+        queueFollowsLibrary = false;
+        shuffleDirty = true;
+        scheduleQueueSave();
+    }
+
+    private void stopAndClear() {
+        handleStop();
+        releaseNextPlayer();
+        ++prepareGeneration;
+        playerHandler.removeCallbacks(prepareRunnable);
+
+        if (mediaPlayer != null) {
+            mediaPlayer.reset();
+        }
+        setPlayerState(STATE_IDLE);
+
+        currentSong = null;
+        duration = 0;
+        dispatchTrackChanged();
+    }
+
     // =========================
     // PLAY CONTROL (OVERLOAD)
     // =========================
+
+    // Tap di library: antrean kembali mengikuti library. Dicari per ID di
+    // thread playback: list di sini bisa tertinggal dari list di UI
+    public void playFromLibrary(Song song) {
+        long requestedAt = metrics.startTimer();
+        long songId = song.getId();
+        commands.run(() -> handlePlayFromLibrary(songId, requestedAt));
+    }
+
+    private void handlePlayFromLibrary(long songId, long requestedAt) {
+        int libraryIndex = indexInLibrary(songId);
+        if (libraryIndex < 0) return;
+
+        // Index library hanya cocok dengan antrean yang mengikuti library
+        if (!queueFollowsLibrary || holdRestoredQueue) {
+            queueFollowsLibrary = true;
+            holdRestoredQueue = false;
+            queue.setAll(library);
+            shuffleDirty = true;
+            dispatchQueueChanged();
+        }
+        handlePlaySong(libraryIndex, false, 0, requestedAt);
+        scheduleQueueSave();
+    }
+
+    private int indexInLibrary(long songId) {
+        for (int i = 0; i < library.size(); i++) {
+            if (library.get(i).getId() == songId) return i;
+        }
+        return -1;
+    }
+
     public void playSong(int index) {
-        playSong(index, false);
+        long requestedAt = metrics.startTimer();
+        commands.run(() -> handlePlaySong(index, false, 0, requestedAt));
     }
 
-    public void playSong(int index, boolean restoring) {
-        if (index < 0 || index >= songList.size()) return;
+    // Tidak pernah blocking: prepareAsync, lalu lanjut di onPlayerPrepared
+    private void handlePlaySong(int index, boolean restoring) {
+        handlePlaySong(index, restoring, 0, 0);
+    }
+
+    /**
+     * @param prepareDelayMs when > 0 the old track stops and the UI moves on
+     *                       right away, but prepare waits; another track
+     *                       change in the meantime cancels it
+     * @param requestedAt    {@link Metrics#startTimer()} taken when the user
+     *                       asked for the track, before the command waited
+     *                       in the queue; 0 when the change is not a tap
+     *                       (restore, completion) and is not measured
+     */
+    private void handlePlaySong(int index, boolean restoring, long prepareDelayMs,
+                                long requestedAt) {
+        if (index < 0 || index >= queue.size()) return;
+
+        metrics.increment(Metrics.PLAYER_PLAY_SONG);
+        playRequestedAt = restoring ? 0 : requestedAt;
+
+        releaseNextPlayer();
+
+        queue.setCurrentIndex(index);
+        currentSong = queue.getCurrentSong();
+        if (!restoring) scheduleQueueSave();
+
+        if (playMode == PLAY_MODE_SHUFFLE) {
+            syncShuffle();
+            shuffle.select(index);
+        }
 
-        currentIndex = index;
-        currentSong = songList.get(index);
+        playWhenReady = !restoring;
+        pendingSeekPosition = -1;
+        seekInFlight = -1;
+        ++prepareGeneration;
+        playerHandler.removeCallbacks(prepareRunnable);
+
+        duration = (int) currentSong.getDuration();
+        dispatchTrackChanged();
+
+        if (!restoring) {
+            stateStore.setTrack(currentSong);
+        }
 
+        changingTrack = true;
         try {
-            mediaPlayer.reset();
-            mediaPlayer.setDataSource(currentSong.getPath());
-            mediaPlayer.prepare();
+            try {
+                mediaPlayer.reset();
+                setPlayerState(STATE_IDLE);
+            } catch (Exception e) {
+                e.printStackTrace();
+                setPlayerState(STATE_ERROR);
+                return;
+            }
 
-            if (!restoring) {
-                mediaPlayer.start();
+            if (prepareDelayMs > 0) {
+                // Dianggap preparing: toggle & seek ditampung sampai prepare
+                setPlayerState(STATE_PREPARING);
+                showNotification(playWhenReady);
+                playerHandler.postDelayed(prepareRunnable, prepareDelayMs);
+            } else {
+                prepareCurrentSong();
             }
+        } finally {
+            // Sudah PREPARING (atau ERROR): kirim hanya kalau memang berubah
+            changingTrack = false;
+            dispatchPlayStateIfChanged();
+        }
+    }
 
-            prefs.edit()
-                    .putInt(KEY_LAST_INDEX, currentIndex)
-                    .apply();
+    private void prepareCurrentSong() {
+        playerHandler.removeCallbacks(prepareRunnable);
+        if (currentSong == null) return;
+
+        final int generation = prepareGeneration;
 
-            releaseEqualizer();
-            initEqualizer();
+        try {
+            effectChain.attach(mediaPlayer);
+
+            mediaPlayer.setDataSource(currentSong.getPath());
+            mediaPlayer.setOnPreparedListener(mp -> onPlayerPrepared(mp, generation));
+            mediaPlayer.setOnErrorListener(this::onPlayerError);
+            mediaPlayer.setOnCompletionListener(this::onPlayerCompletion);
+            mediaPlayer.setOnSeekCompleteListener(this::onPlayerSeekComplete);
 
-            mediaPlayer.setOnCompletionListener(mp -> handleSongCompletion());
+            setPlayerState(STATE_PREPARING);
+            prepareStartedAt = metrics.startTimer();
+            mediaPlayer.prepareAsync();
 
-            showNotification(
-                    currentSong.getTitle(),
-                    currentSong.getArtist(),
-                    !restoring
-            );
+            showNotification(playWhenReady);
 
         } catch (Exception e) {
             e.printStackTrace();
+            setPlayerState(STATE_ERROR);
         }
     }
 
+    private void onPlayerPrepared(MediaPlayer mp, int generation) {
+        if (mp != mediaPlayer || generation != prepareGeneration) return;
+
+        duration = mediaPlayer.getDuration();
+        setPlayerState(STATE_PREPARED);
+        metrics.stopTimer(Metrics.PLAYER_PREPARE, prepareStartedAt);
+        prepareStartedAt = 0;
+
+        // Dari app dibuka sampai lagu terakhir siap diputar
+        if (restoreStartedAt != 0 && currentSong == restoredTrack) {
+            metrics.stopTimer(Metrics.PLAYER_RESTORE_READY, restoreStartedAt);
+        }
+        restoreStartedAt = 0;
+
+        if (pendingSeekPosition >= 0) {
+            mediaPlayer.seekTo(pendingSeekPosition);
+            seekInFlight = pendingSeekPosition;
+            pendingSeekPosition = -1;
+        }
+
+        if (playWhenReady) {
+            mediaPlayer.start();
+            setPlayerState(STATE_STARTED);
+            metrics.stopTimer(Metrics.PLAYER_TAP_TO_AUDIO, playRequestedAt);
+        }
+        playRequestedAt = 0;
+        syncClock();
+
+        showNotification(playWhenReady);
+
+        prepareNextPlayer();
+    }
+
+    private boolean onPlayerError(MediaPlayer mp, int what, int extra) {
+        if (mp != mediaPlayer) return true;
+
+        metrics.increment(Metrics.PLAYER_ERROR);
+        playRequestedAt = 0;
+        prepareStartedAt = 0;
+        playWhenReady = false;
+        pendingSeekPosition = -1;
+        setPlayerState(STATE_ERROR);
+        dispatchError(what, extra);
+
+        if (currentSong != null) {
+            showNotification(false);
+        }
+        return true;
+    }
+
     public void togglePlayPause() {
+        commands.run(this::handleTogglePlayPause);
+    }
+
+    // Dari media session / tombol headset: perintah eksplisit, bukan toggle
+    public void play() {
+        commands.run(() -> {
+            if (!isPlaying()) handleTogglePlayPause();
+        });
+    }
+
+    public void pause() {
+        commands.run(() -> {
+            if (isPlaying()) handleTogglePlayPause();
+        });
+    }
+
+    private void handleTogglePlayPause() {
         if (currentSong == null) return;
 
-        if (mediaPlayer.isPlaying()) {
-            saveCurrentPosition();
-            mediaPlayer.pause();
-            showNotification(currentSong.getTitle(), currentSong.getArtist(), false);
-        } else {
-            mediaPlayer.start();
-            showNotification(currentSong.getTitle(), currentSong.getArtist(), true);
+        switch (playerState) {
+            case STATE_PREPARING:
+                // Belum siap → cukup ubah niat, diterapkan di onPlayerPrepared
+                playWhenReady = !playWhenReady;
+                dispatchPlayStateIfChanged();
+                break;
+
+            case STATE_STARTED:
+                handleSaveCurrentPosition();
+                mediaPlayer.pause();
+                playWhenReady = false;
+                setPlayerState(STATE_PREPARED);
+                break;
+
+            case STATE_PREPARED:
+                mediaPlayer.start();
+                playWhenReady = true;
+                setPlayerState(STATE_STARTED);
+                break;
+
+            default:
+                // IDLE / ERROR → coba siapkan ulang
+                handlePlaySong(queue.getCurrentIndex(), false);
+                return;
         }
+
+        showNotification(isPlaying());
     }
 
     public void next() {
-        if (songList.isEmpty()) return;
-        playSong((currentIndex + 1) % songList.size());
+        commands.skip(1, metrics.startTimer());
     }
 
     public void previous() {
-        if (songList.isEmpty()) return;
-        playSong((currentIndex - 1 + songList.size()) % songList.size());
+        commands.skip(-1, metrics.startTimer());
     }
 
-    private void playRandom() {
-        if (songList.isEmpty()) return;
+    // N kali next (atau previous) digabung jadi satu lompatan
+    private void handleSkip(int offset, long requestedAt) {
+        int index = skipTarget(offset);
+        if (index < 0) return;
 
-        int random;
-        do {
-            random = new Random().nextInt(songList.size());
-        } while (random == currentIndex && songList.size() > 1);
+        // Skip pertama setelah diam langsung diputar, sisanya menunggu
+        long now = SystemClock.uptimeMillis();
+        boolean burst = now - lastSkipAt < SKIP_SETTLE_MS;
+        lastSkipAt = now;
 
-        playSong(random);
+        handlePlaySong(index, false, burst ? SKIP_SETTLE_MS : 0, requestedAt);
+    }
+
+    // -1 kalau antrean kosong
+    private int skipTarget(int offset) {
+        if (queue.isEmpty() || offset == 0) return -1;
+
+        if (playMode == PLAY_MODE_SHUFFLE) {
+            syncShuffle();
+            int index = -1;
+            for (int i = 0; i < offset; i++) index = shuffle.next();
+            for (int i = 0; i > offset; i--) index = shuffle.previous();
+            return index;
+        }
+
+        int current = offset > 0
+                ? queue.getCurrentIndex()
+                : Math.max(queue.getCurrentIndex(), 0);
+        return Math.floorMod(current + offset, queue.size());
+    }
+
+    private void onPlayerCompletion(MediaPlayer mp) {
+        // Callback dari player lama setelah handoff diabaikan
+        if (mp != mediaPlayer) return;
+        handleSongCompletion();
     }
 
     private void handleSongCompletion() {
+        if (nextPlayerAttached) {
+            handOffToNextPlayer();
+            return;
+        }
+
+        // Player berikutnya belum siap → jalur lama
+        int nextIndex = queue.indexOf(nextEntry);
+        if (nextIndex >= 0) {
+            handlePlaySong(nextIndex, false);
+        } else if (playMode == PLAY_MODE_REPEAT_ONE && queue.getCurrent() != null) {
+            handlePlaySong(queue.getCurrentIndex(), false);
+        } else {
+            handlePlaySong(skipTarget(1), false);
+        }
+    }
+
+    // =========================
+    // GAPLESS
+    // =========================
+    private PlayQueue.Entry computeNextEntry() {
+        PlayQueue.Entry current = queue.getCurrent();
+        if (current == null) return null;
+
         if (playMode == PLAY_MODE_REPEAT_ONE) {
-            playSong(currentIndex);
+            return current;
         } else if (playMode == PLAY_MODE_SHUFFLE) {
-            playRandom();
+            // -1 di akhir siklus: siklus baru diacak saat next()
+            syncShuffle();
+            int index = shuffle.peekNext();
+            return index >= 0 && index < queue.size() ? queue.entryAt(index) : null;
         } else {
-            next();
+            PlayQueue.Entry next = queue.next(current);
+            return next != null ? next : queue.first();
         }
     }
 
-    public void seekTo(int position) {
-        if (mediaPlayer != null) {
-            mediaPlayer.seekTo(position);
+    private void prepareNextPlayer() {
+        releaseNextPlayer();
+
+        // Baru setelah lagu ini siap (setNextMediaPlayer butuh player prepared)
+        if (!gaplessEnabled || !isPrepared() || currentSong == null) return;
+
+        PlayQueue.Entry entry = computeNextEntry();
+        if (entry == null) return;
+
+        nextEntry = entry;
+        MediaPlayer player = new MediaPlayer();
+        nextPlayer = player;
+
+        try {
+            // Session sama → equalizer tetap berlaku setelah handoff
+            effectChain.attach(player);
+            player.setDataSource(entry.getSong().getPath());
+            player.setOnPreparedListener(mp -> {
+                if (mp != nextPlayer || mediaPlayer == null) return;
+
+                mediaPlayer.setNextMediaPlayer(mp);
+                nextPlayerAttached = true;
+            });
+            player.setOnErrorListener((mp, what, extra) -> {
+                if (mp == nextPlayer) releaseNextPlayer();
+                return true;
+            });
+            player.prepareAsync();
+        } catch (Exception e) {
+            e.printStackTrace();
+            releaseNextPlayer();
+        }
+    }
+
+    // Player berikutnya sudah dimulai oleh framework saat lagu selesai
+    private void handOffToNextPlayer() {
+        metrics.increment(Metrics.PLAYER_GAPLESS_HANDOFF);
+        MediaPlayer finished = mediaPlayer;
+
+        mediaPlayer = nextPlayer;
+        currentSong = nextEntry.getSong();
+
+        // Entry bisa sudah dihapus dari antrean; lagunya tetap diputar
+        queue.setCurrent(nextEntry);
+        if (playMode == PLAY_MODE_SHUFFLE && queue.getCurrent() != null) {
+            syncShuffle();
+            shuffle.select(queue.getCurrentIndex());
+        }
+
+        nextPlayer = null;
+        nextEntry = null;
+        nextPlayerAttached = false;
+
+        finished.release();
+
+        // Player baru sudah berjalan
+        ++prepareGeneration;
+        playWhenReady = true;
+        pendingSeekPosition = -1;
+        seekInFlight = -1;
+        mediaPlayer.setOnErrorListener(this::onPlayerError);
+        mediaPlayer.setOnCompletionListener(this::onPlayerCompletion);
+        mediaPlayer.setOnSeekCompleteListener(this::onPlayerSeekComplete);
+        duration = mediaPlayer.getDuration();
+        setPlayerState(STATE_STARTED);
+        syncClock();
+
+        stateStore.setTrack(currentSong);
+        scheduleQueueSave();
+        dispatchTrackChanged();
+
+        showNotification(true);
+
+        prepareNextPlayer();
+    }
+
+    private void releaseNextPlayer() {
+        if (nextPlayer != null) {
+            if (nextPlayerAttached && mediaPlayer != null) {
+                mediaPlayer.setNextMediaPlayer(null);
+            }
+            nextPlayer.release();
+            nextPlayer = null;
+        }
+        nextEntry = null;
+        nextPlayerAttached = false;
+    }
+
+    // Setelah antrean berubah: pertahankan player berikutnya jika lagunya sama
+    private void refreshNextPlayer() {
+        if (nextPlayer != null && currentSong != null) {
+            PlayQueue.Entry entry = computeNextEntry();
+            if (entry != null && entry.getSong().getId() == nextEntry.getSong().getId()) {
+                nextEntry = entry;
+                return;
+            }
         }
+        prepareNextPlayer();
     }
 
     // =========================
-    // RESTORE LAST PLAYBACK
+    // SHUFFLE
     // =========================
-    public void restoreLastPlayback() {
 
-        if (restoredOnce) return;
-        restoredOnce = true;
+    // Menyesuaikan urutan shuffle dengan antrean terbaru tanpa mengacak ulang
+    private void syncShuffle() {
+        if (!shuffleDirty) return;
+        shuffleDirty = false;
+
+        long[] ids = queue.songIds();
+        int size = ids.length;
+        int currentIndex = queue.getCurrentIndex();
 
-        int index = prefs.getInt(KEY_LAST_INDEX, -1);
-        int position = prefs.getInt(KEY_LAST_POSITION, 0);
-        playMode = prefs.getInt(KEY_PLAY_MODE, PLAY_MODE_NORMAL);
+        // Lagu yang muncul dua kali: salinan pertama yang dipetakan
+        Map<Long, Integer> indexById = new HashMap<>(size * 2);
+        for (int i = size - 1; i >= 0; i--) {
+            indexById.put(ids[i], i);
+        }
 
-        if (index >= 0 && index < songList.size()) {
-            playSong(index, true);
+        if (shuffle.isEmpty()) {
+            shuffle.reset(size, currentIndex);
+        } else {
+            boolean[] used = new boolean[size];
+            int[] oldToNew = new int[shuffleIds.length];
+            for (int i = 0; i < shuffleIds.length; i++) {
+                Integer index = indexById.get(shuffleIds[i]);
+                oldToNew[i] = index != null && !used[index] ? index : -1;
+                if (oldToNew[i] >= 0) used[index] = true;
+            }
+            shuffle.remap(oldToNew, size);
+        }
+
+        shuffleIds = ids;
+
+        if (currentIndex >= 0) {
+            shuffle.select(currentIndex);
+        }
+    }
+
+    // Seek beruntun (mis. saat seek bar digeser) hanya target terakhir
+    public void seekTo(int position) {
+        commands.seek(position);
+    }
+
+    private void handleSeekTo(int position) {
+        if (playerState == STATE_PREPARING) {
+            pendingSeekPosition = position;
+        } else if (isPrepared()) {
             mediaPlayer.seekTo(position);
+            seekInFlight = position;
+        } else {
+            return;
         }
+        syncClock();
     }
 
-    public boolean hasRestored() {
-        return currentSong != null;
+    private void onPlayerSeekComplete(MediaPlayer mp) {
+        if (mp != mediaPlayer) return;
+        seekInFlight = -1;
+        syncClock();
     }
 
+    // =========================
+    // QUEUE SNAPSHOT
+    // =========================
+    private void scheduleQueueSave() {
+        queueDirty = true;
+        playerHandler.removeCallbacks(saveQueueRunnable);
+        playerHandler.postDelayed(saveQueueRunnable, QUEUE_SAVE_DELAY_MS);
+    }
 
-    public void saveCurrentPosition() {
-        if (mediaPlayer != null) {
-            prefs.edit()
-                    .putInt(KEY_LAST_POSITION, mediaPlayer.getCurrentPosition())
-                    .apply();
+    // Format file: lihat QueueSnapshot
+    private void saveQueueSnapshot() {
+        playerHandler.removeCallbacks(saveQueueRunnable);
+
+        // Snapshot yang belum dipulihkan jangan ditimpa
+        if (!queueDirty
+                || restoreState == RESTORE_NOT_STARTED
+                || restoreState == RESTORE_LOADING) return;
+        queueDirty = false;
+
+        int[] shuffleOrder = new int[0];
+        int shuffleCursor = -1;
+        if (!shuffle.isEmpty()) {
+            syncShuffle();
+            shuffleOrder = shuffle.getOrder();
+            shuffleCursor = shuffle.getCursor();
         }
+
+        queueStore.save(new QueueSnapshot(
+                queue.songIds(),
+                queue.getCurrentIndex(),
+                currentSong != null ? readPosition() : 0,
+                queueFollowsLibrary,
+                shuffleOrder,
+                shuffleCursor
+        ));
     }
 
     // =========================
-    // EQUALIZER
+    // RESTORE LAST PLAYBACK
     // =========================
-    public void initEqualizer() {
-        if (mediaPlayer == null || equalizer != null) return;
+    /**
+     * Restores the last queue, track and position from disk. Called once at
+     * app start; the library scan is not needed unless no snapshot exists.
+     */
+    public void restoreLastPlayback() {
+        commands.run(this::handleRestoreLastPlayback);
+    }
 
-        equalizer = new android.media.audiofx.Equalizer(
-                0,
-                mediaPlayer.getAudioSessionId()
-        );
-        equalizer.setEnabled(true);
+    private void handleRestoreLastPlayback() {
+        switch (restoreState) {
+            case RESTORE_NOT_STARTED:
+                restoreState = RESTORE_LOADING;
+                restoreStartedAt = metrics.startTimer();
+                queueStore.load(stateStore.getTrackId(), queueCallback);
+                break;
+
+            case RESTORE_NO_SNAPSHOT:
+                restoreLastTrack();
+                break;
+
+            default:
+                break;
+        }
+    }
 
-        minEQ = equalizer.getBandLevelRange()[0];
-        maxEQ = equalizer.getBandLevelRange()[1];
+    private final QueueStore.Callback queueCallback = new QueueStore.Callback() {
+        @Override
+        public void onTrackLoaded(QueueSnapshot snapshot, Song track) {
+            // User sudah memutar lagu lain lebih dulu
+            if (currentSong != null || track == null) return;
+
+            // Sementara antrean berisi lagu ini saja, sisanya menyusul
+            queue.setAll(Collections.singletonList(track));
+            queueFollowsLibrary = true;
+            shuffleDirty = true;
+            playMode = stateStore.getPlayMode();
+
+            int position = track.getId() == stateStore.getTrackId()
+                    ? stateStore.getPosition()
+                    : snapshot != null ? snapshot.positionMs : 0;
+
+            restoredTrack = track;
+            handlePlaySong(0, true);
+            stateStore.setTrack(currentSong);
+            stateStore.setPosition(position);
+            handleSeekTo(position);
+            dispatchPlayModeChanged();
+        }
+
+        @Override
+        public void onQueueLoaded(QueueSnapshot snapshot, Map<Long, Song> songsById) {
+            // User sudah memutar lagu lain sebelum antrean selesai dibaca
+            if (currentSong != restoredTrack) {
+                restoreState = RESTORE_DONE;
+                if (queueDirty) scheduleQueueSave();
+                return;
+            }
+
+            if (snapshot != null && applySnapshot(snapshot, songsById)) {
+                restoreState = RESTORE_DONE;
+            } else if (restoredTrack != null) {
+                // Tanpa snapshot: lagu terakhir sudah siap, antrean ikut library
+                restoreState = RESTORE_DONE;
+                if (!library.isEmpty()) handleSetSongList(library, libraryComplete);
+            } else {
+                restoreState = RESTORE_NO_SNAPSHOT;
+                restoreLastTrack();
+            }
+        }
+    };
+
+    private boolean applySnapshot(QueueSnapshot snapshot, Map<Long, Song> songsById) {
+        int count = snapshot.songIds.length;
+
+        // Lagu yang sudah tidak ada di library dibuang, posisi lain bergeser
+        List<Song> songs = new ArrayList<>(count);
+        int[] oldToNew = new int[count];
+        for (int i = 0; i < count; i++) {
+            Song song = songsById.get(snapshot.songIds[i]);
+            oldToNew[i] = song != null ? songs.size() : -1;
+            if (song != null) songs.add(song);
+        }
+        if (songs.isEmpty()) return false;
+
+        queue.setAll(songs);
+        queueFollowsLibrary = snapshot.followsLibrary;
+        holdRestoredQueue = queueFollowsLibrary && !libraryComplete;
+        playMode = stateStore.getPlayMode();
+
+        int cursor = snapshot.cursor >= 0 && snapshot.cursor < count ? oldToNew[snapshot.cursor] : -1;
+        int position = snapshot.positionMs;
+
+        // Lagu & posisi di prefs disimpan lebih sering daripada snapshot
+        long trackId = stateStore.getTrackId();
+        int trackIndex = cursor >= 0 && queue.get(cursor).getId() == trackId
+                ? cursor
+                : queue.indexOfSongId(trackId);
+        if (trackIndex >= 0) {
+            cursor = trackIndex;
+            position = stateStore.getPosition();
+        } else if (cursor < 0) {
+            cursor = 0;
+            position = 0;
+        }
 
-        short bands = equalizer.getNumberOfBands();
-        bandLevels = new short[bands];
+        if (snapshot.shuffleOrder.length > 0) {
+            int[] order = new int[snapshot.shuffleOrder.length];
+            for (int i = 0; i < order.length; i++) {
+                int saved = snapshot.shuffleOrder[i];
+                order[i] = saved >= 0 && saved < count ? oldToNew[saved] : -1;
+            }
+            shuffle.restore(order, snapshot.shuffleCursor, songs.size());
+            shuffleIds = queue.songIds();
+            shuffleDirty = false;
+        } else {
+            shuffleDirty = true;
+        }
 
-        for (short i = 0; i < bands; i++) {
-            bandLevels[i] = equalizer.getBandLevel(i);
+        // Lagu yang sama sudah disiapkan di langkah pertama
+        if (restoredTrack != null && queue.get(cursor).getId() == restoredTrack.getId()) {
+            queue.setCurrentIndex(cursor);
+            if (playMode == PLAY_MODE_SHUFFLE) {
+                syncShuffle();
+                shuffle.select(cursor);
+            }
+            refreshNextPlayer();
+        } else {
+            handlePlaySong(cursor, true);
+            stateStore.setTrack(currentSong);
+            stateStore.setPosition(position);
+            handleSeekTo(position);
         }
+
+        dispatchPlayModeChanged();
+        dispatchQueueChanged();
+        return true;
     }
 
-    public void applyPreset(short preset) {
-        if (equalizer == null) return;
+    // Tanpa snapshot: hanya lagu terakhir, dicari di list library
+    private void restoreLastTrack() {
+        long trackId = stateStore.getTrackId();
+        int position = stateStore.getPosition();
+        playMode = stateStore.getPlayMode();
+
+        int index;
+        if (trackId >= 0) {
+            // Dicari berdasarkan ID, bukan posisi di list
+            index = indexOfSong(trackId);
+            if (index < 0) return; // scan masih berjalan, tunggu batch berikutnya
+        } else {
+            index = stateStore.getLegacyIndex();
+            if (index >= queue.size()) return;
+        }
 
-        equalizer.usePreset(preset);
-        currentPreset = preset;
+        restoreState = RESTORE_DONE;
 
-        for (short i = 0; i < bandLevels.length; i++) {
-            bandLevels[i] = equalizer.getBandLevel(i);
+        if (index >= 0) {
+            handlePlaySong(index, true);
+            stateStore.setTrack(currentSong);
+            stateStore.setPosition(position);
+            handleSeekTo(position);
         }
     }
 
-    public short getMinEQ() { return minEQ; }
-    public short getMaxEQ() { return maxEQ; }
+    public boolean isRestorePending() {
+        return restoreState != RESTORE_DONE;
+    }
 
-    public void setBandLevel(short band, short level) {
-        if (equalizer == null) return;
-        equalizer.setBandLevel(band, level);
-        bandLevels[band] = level;
+    public boolean hasRestored() {
+        return currentSong != null;
     }
 
-    public short getBandLevel(short band) {
-        return bandLevels != null ? bandLevels[band] : 0;
+
+    public void saveCurrentPosition() {
+        commands.run(this::handleSaveCurrentPosition);
     }
 
-    private void releaseEqualizer() {
-        if (equalizer != null) {
-            equalizer.release();
-            equalizer = null;
+    private void handleSaveCurrentPosition() {
+        if (currentSong != null) {
+            stateStore.setPosition(readPosition());
         }
+        stateStore.flush();
+
+        saveQueueSnapshot();
     }
 
     // =========================
-    // NOTIFICATION
+    // EQUALIZER
     // =========================
-    private void showNotification(String title, String artist, boolean isPlaying) {
-
-        Intent openIntent = new Intent(context, MainActivity.class);
-        PendingIntent contentIntent = PendingIntent.getActivity(
-                context,
-                0,
-                openIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
+    // Getter membaca nilai cache di AudioEffectChain, aman dari main thread.
+    // Rentang & level baru terisi setelah onCreated (di main thread)
+    public void initEqualizer(Runnable onCreated) {
+        commands.run(() -> {
+            effectChain.ensureCreated();
+            mainHandler.post(onCreated);
+        });
+    }
 
-        Intent prevIntent = new Intent(context, MusicActionReceiver.class);
-        prevIntent.setAction(MusicActionReceiver.ACTION_PREVIOUS);
-        PendingIntent prevPending = PendingIntent.getBroadcast(
-                context, 1, prevIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
+    // Level band baru bisa dibaca setelah onApplied (di main thread)
+    public void applyPreset(short preset, Runnable onApplied) {
+        commands.run(() -> {
+            effectChain.usePreset(preset);
+            mainHandler.post(onApplied);
+        });
+    }
 
-        Intent playPauseIntent = new Intent(context, MusicActionReceiver.class);
-        playPauseIntent.setAction(MusicActionReceiver.ACTION_PLAY_PAUSE);
-        PendingIntent playPausePending = PendingIntent.getBroadcast(
-                context, 2, playPauseIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
+    public short getMinEQ() { return effectChain.getMinLevel(); }
+    public short getMaxEQ() { return effectChain.getMaxLevel(); }
 
-        Intent nextIntent = new Intent(context, MusicActionReceiver.class);
-        nextIntent.setAction(MusicActionReceiver.ACTION_NEXT);
-        PendingIntent nextPending = PendingIntent.getBroadcast(
-                context, 3, nextIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
+    public void setBandLevel(short band, short level) {
+        commands.run(() -> effectChain.setBandLevel(band, level));
+    }
 
-        int playPauseIcon = isPlaying
-                ? android.R.drawable.ic_media_pause
-                : android.R.drawable.ic_media_play;
+    public short getBandLevel(short band) {
+        return effectChain.getBandLevel(band);
+    }
 
-        Notification notification =
-                new NotificationCompat.Builder(context, NotificationUtils.CHANNEL_ID)
-                        .setSmallIcon(android.R.drawable.ic_media_play)
-                        .setContentTitle(title)
-                        .setContentText(artist)
-                        .setContentIntent(contentIntent)
-                        .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
-                        .setOngoing(isPlaying)
-                        .addAction(android.R.drawable.ic_media_previous, "Prev", prevPending)
-                        .addAction(playPauseIcon, "Play", playPausePending)
-                        .addAction(android.R.drawable.ic_media_next, "Next", nextPending)
-                        .setStyle(new androidx.media.app.NotificationCompat.MediaStyle()
-                                .setShowActionsInCompactView(0, 1, 2))
-                        .build();
+    // =========================
+    // NOTIFICATION
+    // =========================
+    private void showNotification(boolean isPlaying) {
+        notificationController.update(currentSong, isPlaying);
+    }
 
-        NotificationManager manager =
-                (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+    // Dipanggil PlaybackService; token dipakai MediaStyle di notifikasi
+    public void setMediaSession(MediaSessionCompat.Token token) {
+        commands.run(() -> notificationController.setMediaSession(token));
+    }
 
-        if (manager != null) {
-            manager.notify(NOTIFICATION_ID, notification);
-        }
+    // Notifikasi terakhir yang diposting, untuk startForeground
+    public Notification getNotification() {
+        return notificationController.getLastNotification();
     }
 
     public void stopPlaybackAndNotification() {
+        commands.run(this::handleStop);
+    }
 
-        if (mediaPlayer != null && mediaPlayer.isPlaying()) {
-            saveCurrentPosition();
+    private void handleStop() {
+        if (playerState == STATE_STARTED) {
+            handleSaveCurrentPosition();
             mediaPlayer.pause();
+            setPlayerState(STATE_PREPARED);
         }
+        playWhenReady = false;
 
-        NotificationManager manager =
-                (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-
-        if (manager != null) {
-            manager.cancel(NOTIFICATION_ID);
-        }
+        notificationController.cancel();
+        mainHandler.post(() -> PlaybackService.stop(context));
     }
 
-
-
     public void release() {
-        releaseEqualizer();
-        if (mediaPlayer != null) {
-            mediaPlayer.release();
-            mediaPlayer = null;
-        }
+        commands.run(() -> {
+            releaseNextPlayer();
+            effectChain.release();
+            if (mediaPlayer != null) {
+                mediaPlayer.release();
+                mediaPlayer = null;
+            }
+            setPlayerState(STATE_IDLE);
+        });
     }
 }
@@ -0,0 +1,169 @@
+package com.anji4cp.musicplayer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Saved play queue: song IDs in queue order, the cursor, the shuffle order
+ * (as queue positions) and the playback position. The play mode is not
+ * part of it; PlaybackStateStore saves that as soon as it changes.
+ *
+ * File format, big-endian:
+ * <pre>
+ * int  magic "MPQS"
+ * int  version
+ * int  flags (bit 0: queue follows the library)
+ * int  position (ms)
+ * int  cursor
+ * int  count, long[count] song IDs
+ * int  shuffle cursor
+ * int  shuffle count, int[shuffle count] queue positions
+ * int  CRC32 of everything above
+ * </pre>
+ *
+ * Written to a temporary file, synced, then renamed over the old one, so a
+ * crash mid-write leaves the previous snapshot intact.
+ */
+public class QueueSnapshot {
+
+    private static final int MAGIC = 0x4D505153;
+    // 2: tanpa play mode
+    static final int VERSION = 2;
+
+    private static final int FLAG_FOLLOWS_LIBRARY = 1;
+
+    // magic, version, flags, position, cursor, count, shuffle cursor, shuffle count, crc
+    private static final int FIXED_BYTES = 9 * 4;
+
+    public final long[] songIds;
+    public final int cursor;
+    public final int positionMs;
+    public final boolean followsLibrary;
+    public final int[] shuffleOrder;
+    public final int shuffleCursor;
+
+    public QueueSnapshot(long[] songIds, int cursor, int positionMs,
+                         boolean followsLibrary, int[] shuffleOrder, int shuffleCursor) {
+        this.songIds = songIds;
+        this.cursor = cursor;
+        this.positionMs = positionMs;
+        this.followsLibrary = followsLibrary;
+        this.shuffleOrder = shuffleOrder;
+        this.shuffleCursor = shuffleCursor;
+    }
+
+    // =========================
+    // ENCODE
+    // =========================
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(
+                FIXED_BYTES + songIds.length * 8 + shuffleOrder.length * 4);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(followsLibrary ? FLAG_FOLLOWS_LIBRARY : 0);
+        buffer.putInt(positionMs);
+        buffer.putInt(cursor);
+
+        buffer.putInt(songIds.length);
+        buffer.asLongBuffer().put(songIds);
+        buffer.position(buffer.position() + songIds.length * 8);
+
+        buffer.putInt(shuffleCursor);
+        buffer.putInt(shuffleOrder.length);
+        buffer.asIntBuffer().put(shuffleOrder);
+        buffer.position(buffer.position() + shuffleOrder.length * 4);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+
+        return buffer.array();
+    }
+
+    public static QueueSnapshot decode(byte[] data) throws IOException {
+        if (data.length < FIXED_BYTES) throw new IOException("Snapshot too short");
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (buffer.getInt(data.length - 4) != (int) crc.getValue()) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC) throw new IOException("Not a queue snapshot");
+
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+
+            int flags = buffer.getInt();
+            int positionMs = buffer.getInt();
+            int cursor = buffer.getInt();
+
+            long[] songIds = new long[checkCount(buffer.getInt(), buffer.remaining(), 8)];
+            buffer.asLongBuffer().get(songIds);
+            buffer.position(buffer.position() + songIds.length * 8);
+
+            int shuffleCursor = buffer.getInt();
+            int[] shuffleOrder = new int[checkCount(buffer.getInt(), buffer.remaining(), 4)];
+            buffer.asIntBuffer().get(shuffleOrder);
+
+            return new QueueSnapshot(songIds, cursor, positionMs,
+                    (flags & FLAG_FOLLOWS_LIBRARY) != 0, shuffleOrder, shuffleCursor);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated snapshot", e);
+        }
+    }
+
+    // Jumlah dari file tidak dipercaya sebelum dicek terhadap sisa data
+    private static int checkCount(int count, int remaining, int itemBytes) throws IOException {
+        if (count < 0 || (long) count * itemBytes > remaining) {
+            throw new IOException("Invalid snapshot count " + count);
+        }
+        return count;
+    }
+
+    // =========================
+    // FILE
+    // =========================
+    public static void write(File file, QueueSnapshot snapshot) throws IOException {
+        byte[] data = snapshot.encode();
+        File tmp = new File(file.getPath() + ".tmp");
+
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot write " + file);
+        }
+    }
+
+    /** Reads a snapshot, or returns null if none was saved yet. */
+    public static QueueSnapshot read(File file) throws IOException {
+        byte[] data;
+        try (FileInputStream in = new FileInputStream(file)) {
+            long length = in.getChannel().size();
+            if (length > Integer.MAX_VALUE) throw new IOException("Snapshot too large");
+
+            data = new byte[(int) length];
+            int read = 0;
+            while (read < data.length) {
+                int n = in.read(data, read, data.length - read);
+                if (n < 0) throw new IOException("Truncated snapshot");
+                read += n;
+            }
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        return decode(data);
+    }
+}
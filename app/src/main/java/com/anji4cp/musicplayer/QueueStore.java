@@ -0,0 +1,109 @@
+package com.anji4cp.musicplayer;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Saves and loads the {@link QueueSnapshot} on a background thread. Loading
+ * also looks the saved IDs up in {@link LibraryIndex}, so the queue can be
+ * rebuilt without waiting for a MediaStore scan.
+ *
+ * Loading runs in two steps: the last track alone first, so it can be
+ * shown and prepared right away whatever the library size, then the rest
+ * of the queue.
+ *
+ * save() and load() are called from the looper passed to the constructor
+ * (PlayerManager's playback thread); callbacks arrive there.
+ */
+public class QueueStore {
+
+    // snapshot null = belum pernah disimpan atau file rusak
+    public interface Callback {
+        void onTrackLoaded(QueueSnapshot snapshot, Song track);
+        void onQueueLoaded(QueueSnapshot snapshot, Map<Long, Song> songsById);
+    }
+
+    private static final String SNAPSHOT_FILE = "queue_snapshot.bin";
+
+    // Format lama sebelum snapshot, dihapus setelah snapshot pertama
+    private static final String LEGACY_SHUFFLE_FILE = "shuffle_state.bin";
+
+    private final Context context;
+    private final File file;
+
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+    private final Handler handler;
+
+    public QueueStore(Context context, Looper looper) {
+        this.context = context.getApplicationContext();
+        this.handler = new Handler(looper);
+        this.file = new File(this.context.getFilesDir(), SNAPSHOT_FILE);
+    }
+
+    // Snapshot dibuat di thread pemanggil, encode + tulis di background
+    public void save(QueueSnapshot snapshot) {
+        io.execute(() -> {
+            try {
+                QueueSnapshot.write(file, snapshot);
+                new File(context.getFilesDir(), LEGACY_SHUFFLE_FILE).delete();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * @param trackId last track saved by {@link PlaybackStateStore}, or -1 to
+     *                use the snapshot's cursor
+     */
+    public void load(long trackId, Callback callback) {
+        io.execute(() -> {
+            QueueSnapshot snapshot = readSnapshot();
+            LibraryIndex index = LibraryIndex.getInstance(context);
+
+            // 1. Lagu terakhir saja: cukup satu baris dari index
+            long id = trackId;
+            if (id < 0 && snapshot != null
+                    && snapshot.cursor >= 0 && snapshot.cursor < snapshot.songIds.length) {
+                id = snapshot.songIds[snapshot.cursor];
+            }
+            Song track = id >= 0 ? loadSafely(index, new long[]{id}).get(id) : null;
+
+            final QueueSnapshot result = snapshot;
+            handler.post(() -> callback.onTrackLoaded(result, track));
+
+            // 2. Seluruh antrean
+            Map<Long, Song> songsById = snapshot != null
+                    ? loadSafely(index, snapshot.songIds)
+                    : Collections.emptyMap();
+            handler.post(() -> callback.onQueueLoaded(result, songsById));
+        });
+    }
+
+    private QueueSnapshot readSnapshot() {
+        try {
+            return QueueSnapshot.read(file);
+        } catch (IOException e) {
+            // Snapshot rusak → pakai jalur lama (lagu terakhir saja)
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static Map<Long, Song> loadSafely(LibraryIndex index, long[] ids) {
+        try {
+            return index.loadByIds(ids);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return Collections.emptyMap();
+        }
+    }
+}
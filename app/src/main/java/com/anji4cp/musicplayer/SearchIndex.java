@@ -0,0 +1,268 @@
+package com.anji4cp.musicplayer;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search over song titles and artists.
+ *
+ * Text is normalized (lower case, diacritics stripped) and split into
+ * tokens. A sorted token map answers prefix lookups, and a map of
+ * single-character deletions finds tokens one typo away. Songs are added
+ * and removed one by one, so the index never has to be rebuilt.
+ *
+ * Not thread-safe.
+ */
+public class SearchIndex {
+
+    // Token sependek ini tidak dicari dengan toleransi typo
+    private static final int MIN_TYPO_LENGTH = 4;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // token → ID lagu yang memuat token itu
+    private final TreeMap<String, Set<Long>> postings = new TreeMap<>();
+
+    // token dengan satu huruf dihapus → token asli
+    private final Map<String, Set<String>> deletions = new HashMap<>();
+
+    // ID lagu → token miliknya, untuk remove()
+    private final Map<Long, String[]> tokensById = new HashMap<>();
+
+    public int size() {
+        return tokensById.size();
+    }
+
+    public boolean contains(long id) {
+        return tokensById.containsKey(id);
+    }
+
+    // =========================
+    // ADD / REMOVE
+    // =========================
+    public void add(long id, String... fields) {
+        remove(id);
+
+        Set<String> unique = new HashSet<>();
+        for (String field : fields) {
+            Collections.addAll(unique, tokenize(field));
+        }
+
+        String[] tokens = unique.toArray(new String[0]);
+        tokensById.put(id, tokens);
+
+        for (String token : tokens) {
+            Set<Long> ids = postings.get(token);
+            if (ids == null) {
+                ids = new HashSet<>();
+                postings.put(token, ids);
+                addDeletions(token);
+            }
+            ids.add(id);
+        }
+    }
+
+    public void add(Song song) {
+        add(song.getId(), song.getTitle(), song.getArtist());
+    }
+
+    public void remove(long id) {
+        String[] tokens = tokensById.remove(id);
+        if (tokens == null) return;
+
+        for (String token : tokens) {
+            Set<Long> ids = postings.get(token);
+            if (ids == null) continue;
+
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(token);
+                removeDeletions(token);
+            }
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        deletions.clear();
+        tokensById.clear();
+    }
+
+    // =========================
+    // SEARCH
+    // =========================
+
+    /**
+     * Returns the IDs matching every query token, or {@code null} when the
+     * query has no searchable characters (no filtering).
+     */
+    public Set<Long> search(String query) {
+        String[] queryTokens = tokenize(query);
+        if (queryTokens.length == 0) return null;
+
+        Set<Long> result = null;
+
+        for (String queryToken : queryTokens) {
+            Set<Long> matches = matchToken(queryToken);
+
+            if (result == null) {
+                result = matches;
+            } else {
+                result.retainAll(matches);
+            }
+
+            if (result.isEmpty()) break;
+        }
+
+        return result;
+    }
+
+    private Set<Long> matchToken(String queryToken) {
+        Set<Long> matches = new HashSet<>();
+
+        // 1. Prefix: semua token yang diawali queryToken
+        NavigableMap<String, Set<Long>> range =
+                postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false);
+        for (Set<Long> ids : range.values()) {
+            matches.addAll(ids);
+        }
+
+        // 2. Typo: token berjarak satu edit
+        if (queryToken.length() >= MIN_TYPO_LENGTH) {
+            for (String candidate : typoCandidates(queryToken)) {
+                Set<Long> ids = postings.get(candidate);
+                if (ids != null) {
+                    matches.addAll(ids);
+                }
+            }
+        }
+
+        return matches;
+    }
+
+    private Set<String> typoCandidates(String queryToken) {
+        Set<String> candidates = new HashSet<>();
+
+        collectDeletionMatches(queryToken, candidates);
+        for (String variant : deletionsOf(queryToken)) {
+            collectDeletionMatches(variant, candidates);
+            if (postings.containsKey(variant)) {
+                candidates.add(variant);
+            }
+        }
+
+        // Kandidat dari deletion bisa berjarak 2, periksa ulang
+        candidates.removeIf(candidate -> !isWithinOneEdit(queryToken, candidate));
+        return candidates;
+    }
+
+    private void collectDeletionMatches(String key, Set<String> out) {
+        Set<String> tokens = deletions.get(key);
+        if (tokens != null) {
+            out.addAll(tokens);
+        }
+    }
+
+    // =========================
+    // DELETION MAP
+    // =========================
+    private void addDeletions(String token) {
+        if (token.length() < MIN_TYPO_LENGTH) return;
+
+        for (String variant : deletionsOf(token)) {
+            Set<String> tokens = deletions.get(variant);
+            if (tokens == null) {
+                tokens = new HashSet<>(2);
+                deletions.put(variant, tokens);
+            }
+            tokens.add(token);
+        }
+    }
+
+    private void removeDeletions(String token) {
+        if (token.length() < MIN_TYPO_LENGTH) return;
+
+        for (String variant : deletionsOf(token)) {
+            Set<String> tokens = deletions.get(variant);
+            if (tokens == null) continue;
+
+            tokens.remove(token);
+            if (tokens.isEmpty()) {
+                deletions.remove(variant);
+            }
+        }
+    }
+
+    private static Set<String> deletionsOf(String token) {
+        Set<String> variants = new HashSet<>(token.length() * 2);
+        for (int i = 0; i < token.length(); i++) {
+            variants.add(token.substring(0, i) + token.substring(i + 1));
+        }
+        return variants;
+    }
+
+    // Jarak Damerau (substitusi, sisip, hapus, tukar) ≤ 1
+    static boolean isWithinOneEdit(String a, String b) {
+        int lenA = a.length();
+        int lenB = b.length();
+        if (Math.abs(lenA - lenB) > 1) return false;
+
+        int i = 0;
+        while (i < lenA && i < lenB && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (i == lenA && i == lenB) return true;
+
+        if (lenA == lenB) {
+            // Substitusi
+            if (a.regionMatches(i + 1, b, i + 1, lenA - i - 1)) return true;
+
+            // Tukar dua huruf bersebelahan
+            return i + 1 < lenA
+                    && a.charAt(i) == b.charAt(i + 1)
+                    && a.charAt(i + 1) == b.charAt(i)
+                    && a.regionMatches(i + 2, b, i + 2, lenA - i - 2);
+        }
+
+        // Sisip / hapus
+        if (lenA > lenB) {
+            return a.regionMatches(i + 1, b, i, lenB - i);
+        }
+        return b.regionMatches(i + 1, a, i, lenA - i);
+    }
+
+    // =========================
+    // NORMALIZE
+    // =========================
+    public static String normalize(String text) {
+        if (text == null) return "";
+
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return stripped.toLowerCase(Locale.ROOT);
+    }
+
+    public static String[] tokenize(String text) {
+        String normalized = normalize(text).trim();
+        if (normalized.isEmpty()) return new String[0];
+
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+}
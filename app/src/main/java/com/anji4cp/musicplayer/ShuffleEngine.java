@@ -0,0 +1,259 @@
+package com.anji4cp.musicplayer;
+
+import java.util.Random;
+
+/**
+ * Shuffle order as a Fisher–Yates permutation of list positions plus a
+ * cursor. next/previous only move the cursor; the permutation is redrawn
+ * once per full cycle, so every track plays exactly once per cycle.
+ *
+ * Not thread-safe; PlayerManager drives it from a single thread.
+ */
+public class ShuffleEngine {
+
+    private final Random random;
+
+    // order[i] = posisi lagu di list, position[order[i]] = i
+    private int[] order = new int[0];
+    private int[] position = new int[0];
+    private int size = 0;
+
+    // Indeks di "order" untuk lagu yang sedang diputar
+    private int cursor = -1;
+
+    public ShuffleEngine() {
+        this(new Random());
+    }
+
+    public ShuffleEngine(Random random) {
+        this.random = random;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getCursor() {
+        return cursor;
+    }
+
+    public int current() {
+        return cursor >= 0 ? order[cursor] : -1;
+    }
+
+    // Salinan urutan untuk disimpan
+    public int[] getOrder() {
+        int[] copy = new int[size];
+        System.arraycopy(order, 0, copy, 0, size);
+        return copy;
+    }
+
+    // =========================
+    // RESET
+    // =========================
+
+    /** Draws a fresh permutation of {@code size} tracks starting at {@code first}. */
+    public void reset(int size, int first) {
+        ensureCapacity(size);
+        this.size = size;
+
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        shuffleRange(0, size);
+
+        if (first >= 0 && first < size) {
+            swap(0, indexOf(first));
+        }
+        rebuildPositions();
+
+        cursor = size > 0 ? 0 : -1;
+    }
+
+    // =========================
+    // NAVIGATION (O(1))
+    // =========================
+    public int next() {
+        if (size == 0) return -1;
+
+        if (cursor + 1 >= size) {
+            startNewCycle(current());
+        }
+        cursor++;
+        return order[cursor];
+    }
+
+    /** Track that {@link #next()} will return, or -1 when a new cycle must be drawn first. */
+    public int peekNext() {
+        if (size == 0 || cursor + 1 >= size) return -1;
+        return order[cursor + 1];
+    }
+
+    public int previous() {
+        if (size == 0) return -1;
+
+        // Awal siklus: tidak ada riwayat sebelumnya, tetap di lagu ini
+        if (cursor > 0) {
+            cursor--;
+        }
+        return order[cursor];
+    }
+
+    /**
+     * Makes {@code index} the current track. An unplayed track is swapped in
+     * right after the cursor; a track already played this cycle starts a new
+     * cycle so nothing else repeats early.
+     */
+    public void select(int index) {
+        if (index < 0 || index >= size) return;
+
+        int p = position[index];
+        if (p == cursor) return;
+
+        if (p > cursor) {
+            swap(cursor + 1, p);
+            cursor++;
+        } else {
+            startNewCycle(-1);
+            swap(0, position[index]);
+            cursor = 0;
+        }
+    }
+
+    /** Moves an unplayed track right after the cursor without changing the current one. */
+    public void playNext(int index) {
+        if (index < 0 || index >= size) return;
+
+        int p = position[index];
+        if (p > cursor + 1) {
+            swap(cursor + 1, p);
+        }
+    }
+
+    private void startNewCycle(int last) {
+        shuffleRange(0, size);
+
+        // Hindari lagu yang sama dua kali berturut-turut antar siklus
+        if (size > 1 && order[0] == last) {
+            swap(0, 1 + random.nextInt(size - 1));
+        }
+        rebuildPositions();
+        cursor = -1;
+    }
+
+    // =========================
+    // INCREMENTAL UPDATE
+    // =========================
+
+    /**
+     * Applies a change of the song list without reshuffling. {@code oldToNew}
+     * maps each old position to its new one, or -1 when the song is gone.
+     * Surviving tracks keep their played/unplayed status and the played part
+     * keeps its order; new tracks are swapped into random unplayed slots, so
+     * the unplayed part is only reordered when tracks are added.
+     */
+    public void remap(int[] oldToNew, int newSize) {
+        int[] mapped = new int[size];
+        for (int i = 0; i < size; i++) {
+            int old = order[i];
+            mapped[i] = old < oldToNew.length ? oldToNew[old] : -1;
+        }
+        rebuild(mapped, cursor, newSize);
+    }
+
+    /**
+     * Restores a saved order whose entries were already translated to the
+     * current list (-1 for songs that no longer exist).
+     */
+    public void restore(int[] savedOrder, int savedCursor, int newSize) {
+        rebuild(savedOrder, savedCursor, newSize);
+    }
+
+    private void rebuild(int[] mapped, int oldCursor, int newSize) {
+        int[] newOrder = new int[Math.max(newSize, 1)];
+        boolean[] present = new boolean[newSize];
+
+        int count = 0;
+        int newCursor = -1;
+
+        for (int i = 0; i < mapped.length; i++) {
+            int index = mapped[i];
+            if (index >= 0 && index < newSize && !present[index]) {
+                present[index] = true;
+                newOrder[count++] = index;
+            }
+            // Lagu yang sedang diputar terhapus → mundur ke lagu sebelumnya
+            if (i == oldCursor) {
+                newCursor = count - 1;
+            }
+        }
+
+        order = newOrder;
+        size = count;
+        cursor = newCursor;
+
+        // Lagu baru masuk ke bagian yang belum diputar
+        for (int index = 0; index < newSize; index++) {
+            if (present[index]) continue;
+
+            order[size] = index;
+            int unplayedStart = cursor + 1;
+            int slot = unplayedStart + random.nextInt(size - unplayedStart + 1);
+            int tmp = order[slot];
+            order[slot] = order[size];
+            order[size] = tmp;
+            size++;
+        }
+
+        position = new int[order.length];
+        rebuildPositions();
+
+        if (cursor < 0 && size > 0) {
+            cursor = 0;
+        }
+    }
+
+    // =========================
+    // HELPERS
+    // =========================
+    private void shuffleRange(int from, int to) {
+        for (int i = to - 1; i > from; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int tmp = order[a];
+        order[a] = order[b];
+        order[b] = tmp;
+        position[order[a]] = a;
+        position[order[b]] = b;
+    }
+
+    private int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (order[i] == value) return i;
+        }
+        return 0;
+    }
+
+    private void rebuildPositions() {
+        for (int i = 0; i < size; i++) {
+            position[order[i]] = i;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (order.length < capacity) {
+            order = new int[capacity];
+            position = new int[capacity];
+        }
+    }
+}
@@ -2,18 +2,30 @@ package com.anji4cp.musicplayer;
 
 public class Song {
 
+    private long id;
     private String title;
     private String artist;
     private String path;
     private long duration;
-    private byte[] albumArt; // 👈 cover lagu
-
-    public Song(String title, String artist, String path, long duration, byte[] albumArt) {
+    private long size;
+    private long dateModified;
+
+    // Cover tidak disimpan di sini, dimuat lewat AlbumArtLoader
+    // dengan path sebagai referensinya
+    public Song(long id, String title, String artist, String path,
+                long duration, long size, long dateModified) {
+        this.id = id;
         this.title = title;
         this.artist = artist;
         this.path = path;
         this.duration = duration;
-        this.albumArt = albumArt;
+        this.size = size;
+        this.dateModified = dateModified;
+    }
+
+    // MediaStore _ID
+    public long getId() {
+        return id;
     }
 
     public String getTitle() {
@@ -32,7 +44,15 @@ public class Song {
         return duration;
     }
 
-    public byte[] getAlbumArt() {
-        return albumArt;
+    public long getSize() {
+        return size;
+    }
+
+    public long getDateModified() {
+        return dateModified;
+    }
+
+    public String getArtKey() {
+        return path;
     }
 }
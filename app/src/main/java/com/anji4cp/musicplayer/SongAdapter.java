@@ -1,25 +1,80 @@
 package com.anji4cp.musicplayer;
 
+import android.content.Context;
+import android.graphics.Bitmap;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder> {
 
-    private List<Song> songList;
-    private OnSongClickListener listener;
+    // Jumlah baris di depan arah scroll yang thumbnail-nya dimuat lebih dulu
+    private static final int PREFETCH_DISTANCE = 12;
+
+    private final AsyncListDiffer<Song> differ;
+    private final OnSongClickListener listener;
+
+    private final ThumbnailLoader thumbnailLoader;
+    private final int thumbSizePx;
+
+    // Per ID lagu: request yang masih di dalam jendela dibiarkan jalan
+    private final Map<Long, AlbumArtDecoder.Request> prefetchRequests = new HashMap<>();
+    private int prefetchFrom = RecyclerView.NO_POSITION;
 
     public interface OnSongClickListener {
-        void onSongClick(int position);
+        void onSongClick(Song song);
+
+        // Menu antrean; anchor = baris yang ditekan
+        default void onSongLongClick(Song song, View anchor) {}
     }
 
-    public SongAdapter(List<Song> songList, OnSongClickListener listener) {
-        this.songList = songList;
+    // Identitas lagu = ID MediaStore, isi = tag yang ditampilkan/berubah saat rescan
+    private static final DiffUtil.ItemCallback<Song> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<Song>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull Song oldItem, @NonNull Song newItem) {
+                    return oldItem.getId() == newItem.getId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull Song oldItem, @NonNull Song newItem) {
+                    return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                            && Objects.equals(oldItem.getArtist(), newItem.getArtist())
+                            && oldItem.getDateModified() == newItem.getDateModified();
+                }
+            };
+
+    public SongAdapter(Context context, OnSongClickListener listener) {
         this.listener = listener;
+        this.differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+        this.thumbnailLoader = ThumbnailLoader.getInstance(context);
+        this.thumbSizePx = context.getResources().getDimensionPixelSize(R.dimen.song_thumb_size);
+        setHasStableIds(true);
+    }
+
+    /**
+     * Diffs {@code songs} against the current list on a background thread
+     * and dispatches only the changed rows. The list must not be modified
+     * after it is submitted; pass a fresh copy each time.
+     */
+    public void submitList(List<Song> songs) {
+        differ.submitList(songs);
+    }
+
+    public List<Song> getCurrentList() {
+        return differ.getCurrentList();
     }
 
     @NonNull
@@ -32,29 +87,153 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull SongViewHolder holder, int position) {
-        Song song = songList.get(position);
+        Song song = differ.getCurrentList().get(position);
         holder.tvTitle.setText(song.getTitle());
         holder.tvArtist.setText(song.getArtist());
+        holder.bindThumbnail(song);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull SongViewHolder holder) {
+        holder.cancelThumbnail();
+    }
+
+    // =========================
+    // PREFETCH
+    // =========================
+    private final RecyclerView.OnScrollListener prefetchListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            if (dy == 0) return;
+            if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) return;
+
+            LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+            if (dy > 0) {
+                prefetch(layoutManager.findLastVisibleItemPosition() + 1, 1);
+            } else {
+                prefetch(layoutManager.findFirstVisibleItemPosition() - 1, -1);
+            }
+        }
+    };
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(prefetchListener);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        recyclerView.removeOnScrollListener(prefetchListener);
+        cancelPrefetch();
+    }
+
+    private void prefetch(int from, int step) {
+        if (from == prefetchFrom) return;
+        prefetchFrom = from;
+
+        Map<Long, AlbumArtDecoder.Request> window = new HashMap<>();
+
+        List<Song> songs = differ.getCurrentList();
+        for (int i = 0, position = from; i < PREFETCH_DISTANCE; i++, position += step) {
+            if (position < 0 || position >= songs.size()) break;
 
-        holder.itemView.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onSongClick(position);
+            Song song = songs.get(position);
+            AlbumArtDecoder.Request request = prefetchRequests.remove(song.getId());
+            if (request == null && !thumbnailLoader.isCached(song, thumbSizePx)) {
+                request = thumbnailLoader.load(song, thumbSizePx, null);
             }
-        });
+            if (request != null) {
+                window.put(song.getId(), request);
+            }
+        }
+
+        // Sisanya sudah keluar dari jendela
+        cancelPrefetch();
+        prefetchRequests.putAll(window);
+    }
+
+    private void cancelPrefetch() {
+        for (AlbumArtDecoder.Request request : prefetchRequests.values()) {
+            request.cancel();
+        }
+        prefetchRequests.clear();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getId();
     }
 
     @Override
     public int getItemCount() {
-        return songList.size();
+        return differ.getCurrentList().size();
     }
 
-    static class SongViewHolder extends RecyclerView.ViewHolder {
+    class SongViewHolder extends RecyclerView.ViewHolder {
         TextView tvTitle, tvArtist;
+        ImageView imgThumb;
+
+        @Nullable
+        private AlbumArtDecoder.Request thumbRequest;
+        private long boundSongId = -1;
 
         public SongViewHolder(@NonNull View itemView) {
             super(itemView);
             tvTitle = itemView.findViewById(R.id.tvTitle);
             tvArtist = itemView.findViewById(R.id.tvArtist);
+            imgThumb = itemView.findViewById(R.id.imgThumb);
+
+            // Listener dipasang sekali per ViewHolder, bukan tiap bind
+            itemView.setOnClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (position == RecyclerView.NO_POSITION || listener == null) return;
+
+                listener.onSongClick(differ.getCurrentList().get(position));
+            });
+            itemView.setOnLongClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (position == RecyclerView.NO_POSITION || listener == null) return false;
+
+                listener.onSongLongClick(differ.getCurrentList().get(position), v);
+                return true;
+            });
+        }
+
+        void bindThumbnail(Song song) {
+            cancelThumbnail();
+            boundSongId = song.getId();
+
+            Bitmap cached = thumbnailLoader.getCached(song, thumbSizePx);
+            if (cached != null || thumbnailLoader.isCached(song, thumbSizePx)) {
+                setThumbnail(cached);
+                return;
+            }
+
+            setThumbnail(null);
+            thumbRequest = thumbnailLoader.load(song, thumbSizePx, this::onThumbnailLoaded);
+        }
+
+        void cancelThumbnail() {
+            if (thumbRequest != null) {
+                thumbRequest.cancel();
+                thumbRequest = null;
+            }
+        }
+
+        private void onThumbnailLoaded(Song song, @Nullable Bitmap thumbnail) {
+            thumbRequest = null;
+
+            // ViewHolder sudah dipakai untuk lagu lain
+            if (song.getId() != boundSongId) return;
+            setThumbnail(thumbnail);
+        }
+
+        private void setThumbnail(@Nullable Bitmap thumbnail) {
+            if (thumbnail != null) {
+                imgThumb.setImageBitmap(thumbnail);
+            } else {
+                imgThumb.setImageResource(R.drawable.default_album_art);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,718 @@
+package com.anji4cp.musicplayer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Lightweight tag parser for ID3v2 (MP3), FLAC and MP4/M4A.
+ *
+ * Only headers and tag frames are read, through positional reads on a
+ * {@link FileChannel}. The embedded picture is never copied while parsing:
+ * {@link Tags} only records where it sits in the file, and
+ * {@link #readPicture} reads exactly that region when it is needed.
+ *
+ * Returns null for formats it does not know, so callers can fall back to
+ * MediaMetadataRetriever. Pure Java, no Android dependencies.
+ */
+public class TagReader {
+
+    public static final int FORMAT_ID3 = 1;
+    public static final int FORMAT_FLAC = 2;
+    public static final int FORMAT_MP4 = 3;
+
+    // Frame teks lebih besar dari ini dianggap rusak
+    private static final int MAX_TEXT_BYTES = 64 * 1024;
+
+    // Cukup untuk header APIC/PICTURE (mime + deskripsi) tanpa datanya
+    private static final int PICTURE_HEADER_PROBE = 1024;
+
+    // Batas atom yang ditelusuri di dalam moov
+    private static final int MAX_MP4_DEPTH = 6;
+
+    private static final int ID3_PICTURE_FRONT_COVER = 3;
+
+    private static final Charset UTF_16 = StandardCharsets.UTF_16;
+
+    public static final class Tags {
+        private int format;
+        private String title;
+        private String artist;
+        private String album;
+        private int trackNumber = 0;
+        private long durationMs = 0;
+
+        private long pictureOffset = -1;
+        private int pictureLength = 0;
+        private String pictureMime;
+        private int pictureType = -1;
+
+        // Ada frame gambar yang terkompresi/unsync, offset-nya tidak bisa dipakai
+        private boolean pictureUnreadable = false;
+
+        public int getFormat() {
+            return format;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getArtist() {
+            return artist;
+        }
+
+        public String getAlbum() {
+            return album;
+        }
+
+        // 0 = tidak diketahui
+        public int getTrackNumber() {
+            return trackNumber;
+        }
+
+        // Perkiraan dari tag/header, 0 = tidak diketahui
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public boolean hasPicture() {
+            return pictureOffset >= 0 && pictureLength > 0;
+        }
+
+        public long getPictureOffset() {
+            return pictureOffset;
+        }
+
+        public int getPictureLength() {
+            return pictureLength;
+        }
+
+        public String getPictureMime() {
+            return pictureMime;
+        }
+
+        /** True when the file has a picture this reader could not locate. */
+        public boolean isPictureUnreadable() {
+            return pictureUnreadable && !hasPicture();
+        }
+
+        // Cover depan lebih diutamakan dari gambar lain
+        private void offerPicture(long offset, int length, String mime, int type) {
+            if (length <= 0) return;
+            if (hasPicture() && (pictureType == ID3_PICTURE_FRONT_COVER || type != ID3_PICTURE_FRONT_COVER)) {
+                return;
+            }
+            pictureOffset = offset;
+            pictureLength = length;
+            pictureMime = mime;
+            pictureType = type;
+        }
+    }
+
+    // =========================
+    // ENTRY POINTS
+    // =========================
+    public static Tags read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return read(channel);
+        }
+    }
+
+    /** Parses tags, or returns null when the format is not recognised. */
+    public static Tags read(FileChannel channel) throws IOException {
+        ByteBuffer head = readAt(channel, 0, 12);
+        if (head.remaining() < 12) return null;
+
+        if (matches(head, 0, "ID3")) {
+            Tags tags = new Tags();
+            tags.format = FORMAT_ID3;
+            long end = readId3(channel, tags);
+
+            // FLAC kadang diawali tag ID3
+            ByteBuffer next = readAt(channel, end, 4);
+            if (next.remaining() == 4 && matches(next, 0, "fLaC")) {
+                tags.format = FORMAT_FLAC;
+                readFlac(channel, end, tags);
+            }
+            return tags;
+        }
+
+        if (matches(head, 0, "fLaC")) {
+            Tags tags = new Tags();
+            tags.format = FORMAT_FLAC;
+            readFlac(channel, 0, tags);
+            return tags;
+        }
+
+        if (matches(head, 4, "ftyp")) {
+            Tags tags = new Tags();
+            tags.format = FORMAT_MP4;
+            readMp4(channel, tags);
+            return tags;
+        }
+
+        return null;
+    }
+
+    /** Reads the picture bytes located by {@link #read}, or null if there is none. */
+    public static byte[] readPicture(FileChannel channel, Tags tags) throws IOException {
+        if (tags == null || !tags.hasPicture()) return null;
+
+        ByteBuffer data = readAt(channel, tags.pictureOffset, tags.pictureLength);
+        if (data.remaining() != tags.pictureLength) return null;
+
+        byte[] picture = new byte[tags.pictureLength];
+        data.get(picture);
+        return picture;
+    }
+
+    public static byte[] readPicture(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return readPicture(channel, read(channel));
+        }
+    }
+
+    // =========================
+    // ID3v2
+    // =========================
+
+    // Mengembalikan offset setelah tag (awal audio)
+    private static long readId3(FileChannel channel, Tags tags) throws IOException {
+        ByteBuffer header = readAt(channel, 0, 10);
+        if (header.remaining() < 10) return 0;
+
+        int major = header.get(3) & 0xFF;
+        int flags = header.get(5) & 0xFF;
+        int tagSize = syncSafe(header, 6);
+        long tagEnd = 10L + tagSize + ((major == 4 && (flags & 0x10) != 0) ? 10 : 0);
+
+        if (major < 2 || major > 4) return tagEnd;
+
+        // Unsync di level tag (v2.2/2.3): byte gambar tidak bisa dipakai langsung
+        boolean tagUnsync = (flags & 0x80) != 0;
+
+        long pos = 10;
+        if ((flags & 0x40) != 0 && major >= 3) {
+            ByteBuffer ext = readAt(channel, pos, 4);
+            if (ext.remaining() < 4) return tagEnd;
+            pos += major == 4 ? syncSafe(ext, 0) : 4 + ext.getInt(0);
+        }
+
+        int idLength = major == 2 ? 3 : 4;
+        int headerLength = major == 2 ? 6 : 10;
+        long framesEnd = 10L + tagSize;
+
+        while (pos + headerLength <= framesEnd) {
+            ByteBuffer frame = readAt(channel, pos, headerLength);
+            if (frame.remaining() < headerLength) break;
+
+            // Padding
+            if (frame.get(0) == 0) break;
+
+            String id = ascii(frame, 0, idLength);
+            int size;
+            int frameFlags = 0;
+            if (major == 2) {
+                size = ((frame.get(3) & 0xFF) << 16) | ((frame.get(4) & 0xFF) << 8) | (frame.get(5) & 0xFF);
+            } else if (major == 3) {
+                size = frame.getInt(4);
+                frameFlags = frame.getShort(8) & 0xFFFF;
+            } else {
+                size = syncSafe(frame, 4);
+                frameFlags = frame.getShort(8) & 0xFFFF;
+            }
+
+            long dataStart = pos + headerLength;
+            if (size <= 0 || dataStart + size > framesEnd) break;
+
+            readId3Frame(channel, tags, major, id, frameFlags, tagUnsync, dataStart, size);
+            pos = dataStart + size;
+        }
+
+        return tagEnd;
+    }
+
+    private static void readId3Frame(FileChannel channel, Tags tags, int major, String id,
+                                     int frameFlags, boolean tagUnsync,
+                                     long dataStart, int size) throws IOException {
+
+        // v2.3: kompresi 0x0080, enkripsi 0x0040; v2.4: 0x0008, 0x0004
+        boolean packed = major == 3
+                ? (frameFlags & 0x00C0) != 0
+                : major == 4 && (frameFlags & 0x000C) != 0;
+        boolean unsync = tagUnsync || (major == 4 && (frameFlags & 0x0002) != 0);
+        boolean picture = "APIC".equals(id) || "PIC".equals(id);
+
+        if (packed || (picture && unsync)) {
+            if (picture) {
+                tags.pictureUnreadable = true;
+            }
+            return;
+        }
+
+        // v2.4: 4 byte "data length indicator" di depan isi frame
+        if (major == 4 && (frameFlags & 0x0001) != 0) {
+            dataStart += 4;
+            size -= 4;
+            if (size <= 0) return;
+        }
+
+        switch (id) {
+            case "TIT2":
+            case "TT2":
+                tags.title = firstNonEmpty(tags.title, readId3Text(channel, dataStart, size, unsync));
+                break;
+            case "TPE1":
+            case "TP1":
+                tags.artist = firstNonEmpty(tags.artist, readId3Text(channel, dataStart, size, unsync));
+                break;
+            case "TALB":
+            case "TAL":
+                tags.album = firstNonEmpty(tags.album, readId3Text(channel, dataStart, size, unsync));
+                break;
+            case "TRCK":
+            case "TRK":
+                if (tags.trackNumber == 0) {
+                    tags.trackNumber = parseLeadingInt(readId3Text(channel, dataStart, size, unsync));
+                }
+                break;
+            case "TLEN":
+            case "TLE":
+                if (tags.durationMs == 0) {
+                    tags.durationMs = parseLeadingInt(readId3Text(channel, dataStart, size, unsync));
+                }
+                break;
+            case "APIC":
+            case "PIC":
+                readId3Picture(channel, tags, "PIC".equals(id), dataStart, size);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String readId3Text(FileChannel channel, long pos, int size, boolean unsync)
+            throws IOException {
+        if (size < 1 || size > MAX_TEXT_BYTES) return null;
+
+        ByteBuffer data = readAt(channel, pos, size);
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        if (unsync) {
+            bytes = removeUnsync(bytes);
+        }
+        if (bytes.length < 1) return null;
+
+        int encoding = bytes[0] & 0xFF;
+        String text = decode(bytes, 1, bytes.length - 1, encoding);
+
+        // v2.4 boleh berisi beberapa nilai dipisah null, ambil yang pertama
+        int nul = text.indexOf('\0');
+        if (nul >= 0) {
+            text = text.substring(0, nul);
+        }
+        text = text.trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static void readId3Picture(FileChannel channel, Tags tags, boolean v22,
+                                       long pos, int size) throws IOException {
+        ByteBuffer head = readAt(channel, pos, Math.min(size, PICTURE_HEADER_PROBE));
+        int limit = head.remaining();
+        if (limit < 4) return;
+
+        int encoding = head.get(0) & 0xFF;
+        int offset = 1;
+        String mime;
+
+        if (v22) {
+            // v2.2: format 3 huruf ("JPG"/"PNG")
+            String format = ascii(head, offset, 3);
+            mime = "PNG".equalsIgnoreCase(format) ? "image/png" : "image/jpeg";
+            offset += 3;
+        } else {
+            int end = indexOfNull(head, offset, limit, 1);
+            if (end < 0) return;
+            mime = ascii(head, offset, end - offset);
+            offset = end + 1;
+        }
+
+        if (offset >= limit) return;
+        int pictureType = head.get(offset) & 0xFF;
+        offset++;
+
+        // Deskripsi: null 1 byte, atau 2 byte untuk UTF-16
+        int nullWidth = (encoding == 1 || encoding == 2) ? 2 : 1;
+        int descEnd = indexOfNull(head, offset, limit, nullWidth);
+        if (descEnd < 0) return;
+        offset = descEnd + nullWidth;
+
+        tags.offerPicture(pos + offset, size - offset, mime, pictureType);
+    }
+
+    private static byte[] removeUnsync(byte[] bytes) {
+        byte[] out = new byte[bytes.length];
+        int count = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            out[count++] = bytes[i];
+            if ((bytes[i] & 0xFF) == 0xFF && i + 1 < bytes.length && bytes[i + 1] == 0) {
+                i++;
+            }
+        }
+        byte[] result = new byte[count];
+        System.arraycopy(out, 0, result, 0, count);
+        return result;
+    }
+
+    private static String decode(byte[] bytes, int offset, int length, int encoding) {
+        switch (encoding) {
+            case 1:
+                return new String(bytes, offset, length, UTF_16);
+            case 2:
+                return new String(bytes, offset, length, StandardCharsets.UTF_16BE);
+            case 3:
+                return new String(bytes, offset, length, StandardCharsets.UTF_8);
+            default:
+                return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    // =========================
+    // FLAC
+    // =========================
+    private static void readFlac(FileChannel channel, long start, Tags tags) throws IOException {
+        long pos = start + 4;
+
+        while (true) {
+            ByteBuffer header = readAt(channel, pos, 4);
+            if (header.remaining() < 4) return;
+
+            int first = header.get(0) & 0xFF;
+            boolean last = (first & 0x80) != 0;
+            int type = first & 0x7F;
+            int length = ((header.get(1) & 0xFF) << 16) | ((header.get(2) & 0xFF) << 8) | (header.get(3) & 0xFF);
+            long dataStart = pos + 4;
+
+            switch (type) {
+                case 0:
+                    readFlacStreamInfo(channel, dataStart, length, tags);
+                    break;
+                case 4:
+                    readVorbisComments(channel, dataStart, length, tags);
+                    break;
+                case 6:
+                    readFlacPicture(channel, dataStart, length, tags);
+                    break;
+                default:
+                    break;
+            }
+
+            if (last || type == 127) return;
+            pos = dataStart + length;
+        }
+    }
+
+    private static void readFlacStreamInfo(FileChannel channel, long pos, int length, Tags tags)
+            throws IOException {
+        if (length < 18) return;
+
+        ByteBuffer info = readAt(channel, pos, 18);
+        if (info.remaining() < 18) return;
+
+        // Bit 80..99: sample rate, 108..143: total sample
+        long packed = info.getLong(10);
+        long sampleRate = packed >>> 44;
+        long totalSamples = packed & 0xFFFFFFFFFL;
+
+        if (sampleRate > 0 && totalSamples > 0 && tags.durationMs == 0) {
+            tags.durationMs = totalSamples * 1000 / sampleRate;
+        }
+    }
+
+    private static void readVorbisComments(FileChannel channel, long pos, int length, Tags tags)
+            throws IOException {
+        if (length > MAX_TEXT_BYTES * 4) return;
+
+        ByteBuffer block = readAt(channel, pos, length).order(ByteOrder.LITTLE_ENDIAN);
+        if (block.remaining() < 8) return;
+
+        long vendorLength = block.getInt() & 0xFFFFFFFFL;
+        if (vendorLength > block.remaining() - 4) return;
+        block.position(block.position() + (int) vendorLength);
+
+        long count = block.getInt() & 0xFFFFFFFFL;
+        for (long i = 0; i < count && block.remaining() >= 4; i++) {
+            long commentLength = block.getInt() & 0xFFFFFFFFL;
+            if (commentLength > block.remaining()) return;
+
+            byte[] bytes = new byte[(int) commentLength];
+            block.get(bytes);
+            String comment = new String(bytes, StandardCharsets.UTF_8);
+
+            int eq = comment.indexOf('=');
+            if (eq <= 0) continue;
+
+            String key = comment.substring(0, eq).toUpperCase(Locale.ROOT);
+            String value = comment.substring(eq + 1).trim();
+            if (value.isEmpty()) continue;
+
+            switch (key) {
+                case "TITLE":
+                    tags.title = firstNonEmpty(tags.title, value);
+                    break;
+                case "ARTIST":
+                    tags.artist = firstNonEmpty(tags.artist, value);
+                    break;
+                case "ALBUM":
+                    tags.album = firstNonEmpty(tags.album, value);
+                    break;
+                case "TRACKNUMBER":
+                    if (tags.trackNumber == 0) {
+                        tags.trackNumber = parseLeadingInt(value);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void readFlacPicture(FileChannel channel, long pos, int length, Tags tags)
+            throws IOException {
+        ByteBuffer head = readAt(channel, pos, Math.min(length, PICTURE_HEADER_PROBE));
+        if (head.remaining() < 8) return;
+
+        // Panjang dari file dibandingkan dengan sisa data, bukan dijumlahkan (overflow)
+        int type = head.getInt(0);
+        int mimeLength = head.getInt(4);
+        if (mimeLength < 0 || mimeLength > head.remaining() - 12) return;
+        String mime = ascii(head, 8, mimeLength);
+
+        int descOffset = 8 + mimeLength;
+        int descLength = head.getInt(descOffset);
+        // deskripsi + lebar, tinggi, depth, jumlah warna + panjang data
+        if (descLength < 0 || descLength > head.remaining() - descOffset - 4 - 16 - 4) return;
+        int dataLengthOffset = descOffset + 4 + descLength + 16;
+
+        int dataLength = head.getInt(dataLengthOffset);
+        int dataOffset = dataLengthOffset + 4;
+        if (dataLength <= 0 || dataOffset + (long) dataLength > length) return;
+
+        tags.offerPicture(pos + dataOffset, dataLength, mime, type);
+    }
+
+    // =========================
+    // MP4
+    // =========================
+    private static void readMp4(FileChannel channel, Tags tags) throws IOException {
+        readMp4Atoms(channel, 0, channel.size(), tags, 0, false);
+    }
+
+    private static void readMp4Atoms(FileChannel channel, long pos, long end,
+                                     Tags tags, int depth, boolean inIlst) throws IOException {
+        if (depth > MAX_MP4_DEPTH) return;
+
+        while (pos + 8 <= end) {
+            ByteBuffer header = readAt(channel, pos, 16);
+            if (header.remaining() < 8) return;
+
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            String type = ascii(header, 4, 4);
+            int headerLength = 8;
+
+            if (size == 1) {
+                // Ukuran 64-bit
+                if (header.remaining() < 16) return;
+                size = header.getLong(8);
+                headerLength = 16;
+            } else if (size == 0) {
+                // Atom terakhir sampai akhir file
+                size = end - pos;
+            }
+            if (size < headerLength || pos + size > end) return;
+
+            long dataStart = pos + headerLength;
+            long dataEnd = pos + size;
+
+            if (inIlst) {
+                readMp4Item(channel, type, dataStart, dataEnd, tags);
+            } else {
+                switch (type) {
+                    case "moov":
+                    case "udta":
+                        readMp4Atoms(channel, dataStart, dataEnd, tags, depth + 1, false);
+                        break;
+                    case "meta":
+                        readMp4Atoms(channel, metaChildrenStart(channel, dataStart), dataEnd,
+                                tags, depth + 1, false);
+                        break;
+                    case "ilst":
+                        readMp4Atoms(channel, dataStart, dataEnd, tags, depth + 1, true);
+                        break;
+                    case "mvhd":
+                        readMp4Duration(channel, dataStart, tags);
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            pos = dataEnd;
+        }
+    }
+
+    // "meta" biasanya full box (4 byte versi/flag), kecuali di sebagian file QuickTime
+    private static long metaChildrenStart(FileChannel channel, long dataStart) throws IOException {
+        ByteBuffer probe = readAt(channel, dataStart, 8);
+        if (probe.remaining() == 8 && matches(probe, 4, "hdlr")) {
+            return dataStart;
+        }
+        return dataStart + 4;
+    }
+
+    private static void readMp4Duration(FileChannel channel, long pos, Tags tags) throws IOException {
+        ByteBuffer mvhd = readAt(channel, pos, 32);
+        if (mvhd.remaining() < 20) return;
+
+        int version = mvhd.get(0) & 0xFF;
+        long timescale;
+        long duration;
+        if (version == 1) {
+            if (mvhd.remaining() < 32) return;
+            timescale = mvhd.getInt(20) & 0xFFFFFFFFL;
+            duration = mvhd.getLong(24);
+        } else {
+            timescale = mvhd.getInt(12) & 0xFFFFFFFFL;
+            duration = mvhd.getInt(16) & 0xFFFFFFFFL;
+        }
+
+        if (timescale > 0 && duration > 0 && tags.durationMs == 0) {
+            tags.durationMs = duration * 1000 / timescale;
+        }
+    }
+
+    private static void readMp4Item(FileChannel channel, String type, long pos, long end, Tags tags)
+            throws IOException {
+        // Item ilst berisi atom "data": ukuran, "data", tipe (4), locale (4), isi
+        ByteBuffer header = readAt(channel, pos, 16);
+        if (header.remaining() < 16 || !matches(header, 4, "data")) return;
+
+        long dataSize = header.getInt(0) & 0xFFFFFFFFL;
+        int dataType = header.getInt(8) & 0x00FFFFFF;
+        long payloadStart = pos + 16;
+        long payloadLength = Math.min(dataSize, end - pos) - 16;
+        if (payloadLength <= 0) return;
+
+        if ("covr".equals(type)) {
+            if (payloadLength > Integer.MAX_VALUE) return;
+            String mime = dataType == 14 ? "image/png" : "image/jpeg";
+            tags.offerPicture(payloadStart, (int) payloadLength, mime, ID3_PICTURE_FRONT_COVER);
+            return;
+        }
+
+        if ("trkn".equals(type)) {
+            ByteBuffer track = readAt(channel, payloadStart, 4);
+            if (track.remaining() == 4 && tags.trackNumber == 0) {
+                tags.trackNumber = track.getShort(2) & 0xFFFF;
+            }
+            return;
+        }
+
+        if (payloadLength > MAX_TEXT_BYTES) return;
+        ByteBuffer text = readAt(channel, payloadStart, (int) payloadLength);
+        byte[] bytes = new byte[text.remaining()];
+        text.get(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8).trim();
+        if (value.isEmpty()) return;
+
+        switch (type) {
+            case "©nam":
+                tags.title = firstNonEmpty(tags.title, value);
+                break;
+            case "©ART":
+                tags.artist = firstNonEmpty(tags.artist, value);
+                break;
+            case "©alb":
+                tags.album = firstNonEmpty(tags.album, value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // =========================
+    // HELPERS
+    // =========================
+
+    // Bisa kurang dari "length" kalau file habis
+    private static ByteBuffer readAt(FileChannel channel, long pos, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(0, length));
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, pos + buffer.position());
+            if (read < 0) break;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int offset, String ascii) {
+        if (buffer.limit() < offset + ascii.length()) return false;
+        for (int i = 0; i < ascii.length(); i++) {
+            if ((buffer.get(offset + i) & 0xFF) != ascii.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // Latin-1: byte 0xA9 ("©") jadi karakter U+00A9
+    private static String ascii(ByteBuffer buffer, int offset, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (buffer.get(offset + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    private static int syncSafe(ByteBuffer buffer, int offset) {
+        return ((buffer.get(offset) & 0x7F) << 21)
+                | ((buffer.get(offset + 1) & 0x7F) << 14)
+                | ((buffer.get(offset + 2) & 0x7F) << 7)
+                | (buffer.get(offset + 3) & 0x7F);
+    }
+
+    // Posisi null terminator; untuk UTF-16 dicari pasangan 00 00 yang sejajar
+    private static int indexOfNull(ByteBuffer buffer, int from, int limit, int width) {
+        for (int i = from; i + width <= limit; i += width) {
+            if (buffer.get(i) == 0 && (width == 1 || buffer.get(i + 1) == 0)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int parseLeadingInt(String text) {
+        if (text == null) return 0;
+
+        // "3/12" → 3
+        long value = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') break;
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) return 0;
+        }
+        return (int) value;
+    }
+
+    private static String firstNonEmpty(String current, String candidate) {
+        return current != null ? current : candidate;
+    }
+}
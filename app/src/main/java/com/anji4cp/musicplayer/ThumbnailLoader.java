@@ -0,0 +1,295 @@
+package com.anji4cp.musicplayer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small cover thumbnails for library rows, served from two tiers:
+ * a memory LRU of decoded bitmaps and a disk cache of pre-scaled WebP
+ * files. Both are keyed by path and modification time, so a retagged file
+ * gets a new thumbnail and the stale one simply ages out.
+ *
+ * Work runs newest-first: while flinging, rows that just came on screen
+ * are served before rows that have already scrolled past, and recycled
+ * rows cancel their request.
+ */
+public class ThumbnailLoader {
+
+    public interface Callback {
+        void onThumbnailLoaded(Song song, @Nullable Bitmap thumbnail);
+    }
+
+    private static final String DISK_DIR = "thumbs";
+    private static final long DISK_MAX_BYTES = 32L * 1024 * 1024;
+    private static final int WEBP_QUALITY = 80;
+    private static final int THREADS = 2;
+
+    // Penanda "lagu tanpa cover" di memori dan disk (file 0 byte)
+    private static final Bitmap NO_THUMB = Bitmap.createBitmap(1, 1, Bitmap.Config.ALPHA_8);
+
+    private static ThumbnailLoader instance;
+
+    private final File diskDir;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Perkiraan isi folder disk: dihitung ulang tiap trim, ditambah tiap tulis
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final AtomicBoolean trimScheduled = new AtomicBoolean();
+
+    private ThumbnailLoader(Context context) {
+        diskDir = new File(context.getApplicationContext().getCacheDir(), DISK_DIR);
+
+        // 1/16 heap untuk thumbnail (48dp ≈ 20 KB per baris)
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16);
+        memoryCache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+
+        // Antrean LIFO: request terbaru (baris yang baru terlihat) dikerjakan dulu
+        executor = new ThreadPoolExecutor(
+                THREADS, THREADS, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingDeque<Runnable>() {
+                    @Override
+                    public boolean offer(Runnable runnable) {
+                        return offerFirst(runnable);
+                    }
+                });
+
+        scheduleTrim();
+    }
+
+    public static synchronized ThumbnailLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ThumbnailLoader(context);
+        }
+        return instance;
+    }
+
+    // =========================
+    // MEMORY CACHE
+    // =========================
+    private static String cacheKey(Song song, int sizePx) {
+        return song.getPath() + '|' + song.getDateModified() + '|' + sizePx;
+    }
+
+    /** Returns true when the memory cache already knows the answer for this row. */
+    public boolean isCached(Song song, int sizePx) {
+        return song.getPath() != null && memoryCache.get(cacheKey(song, sizePx)) != null;
+    }
+
+    @Nullable
+    public Bitmap getCached(Song song, int sizePx) {
+        if (song.getPath() == null) return null;
+        Bitmap bitmap = memoryCache.get(cacheKey(song, sizePx));
+        return bitmap == NO_THUMB ? null : bitmap;
+    }
+
+    // =========================
+    // LOAD
+    // =========================
+
+    /**
+     * Loads the thumbnail on a background thread. The callback runs on the
+     * main thread unless the request was cancelled first. Pass a null
+     * callback to only warm the cache (prefetch).
+     */
+    @MainThread
+    public AlbumArtDecoder.Request load(Song song, int sizePx, @Nullable Callback callback) {
+        AlbumArtDecoder.Request request = new AlbumArtDecoder.Request();
+
+        if (song.getPath() == null || isCached(song, sizePx)) {
+            if (callback != null) {
+                callback.onThumbnailLoaded(song, getCached(song, sizePx));
+            }
+            return request;
+        }
+
+        executor.execute(() -> {
+            if (request.isCancelled()) return;
+
+            Bitmap bitmap = loadBlocking(song, sizePx, request);
+            if (bitmap == null || callback == null) return;
+
+            mainHandler.post(() -> {
+                if (!request.isCancelled()) {
+                    callback.onThumbnailLoaded(song, bitmap == NO_THUMB ? null : bitmap);
+                }
+            });
+        });
+
+        return request;
+    }
+
+    // null = dibatalkan di tengah jalan
+    @WorkerThread
+    @Nullable
+    private Bitmap loadBlocking(Song song, int sizePx, AlbumArtDecoder.Request request) {
+        String key = cacheKey(song, sizePx);
+
+        // Bisa saja sudah dimuat oleh request lain (mis. prefetch)
+        Bitmap bitmap = memoryCache.get(key);
+        if (bitmap != null) return bitmap;
+
+        // 1. Disk
+        File file = new File(diskDir, diskName(key));
+        if (file.exists()) {
+            bitmap = file.length() == 0
+                    ? NO_THUMB
+                    : BitmapFactory.decodeFile(file.getPath());
+            if (bitmap != null) {
+                memoryCache.put(key, bitmap);
+                return bitmap;
+            }
+        }
+
+        if (request.isCancelled()) return null;
+
+        // 2. File audio → decode kecil → simpan ke disk
+        byte[] art = AlbumArtLoader.readEmbeddedPicture(song.getPath());
+        if (request.isCancelled()) return null;
+
+        bitmap = scale(BitmapUtils.decodeSampled(art, sizePx, sizePx), sizePx);
+        if (bitmap == null) {
+            bitmap = NO_THUMB;
+        }
+
+        writeToDisk(file, bitmap);
+        memoryCache.put(key, bitmap);
+        return bitmap;
+    }
+
+    // inSampleSize hanya pangkat 2, sisanya diperkecil di sini agar file di disk kecil
+    @Nullable
+    private static Bitmap scale(@Nullable Bitmap source, int sizePx) {
+        if (source == null) return null;
+
+        int shortSide = Math.min(source.getWidth(), source.getHeight());
+        if (shortSide <= sizePx) return source;
+
+        float ratio = (float) sizePx / shortSide;
+        Bitmap scaled = Bitmap.createScaledBitmap(
+                source,
+                Math.round(source.getWidth() * ratio),
+                Math.round(source.getHeight() * ratio),
+                true);
+        if (scaled != source) {
+            source.recycle();
+        }
+        return scaled;
+    }
+
+    // =========================
+    // DISK CACHE
+    // =========================
+    @SuppressWarnings("deprecation")
+    private void writeToDisk(File file, Bitmap bitmap) {
+        if (!diskDir.exists() && !diskDir.mkdirs()) return;
+
+        // Tulis ke file sementara lalu rename: tidak ada thumbnail setengah jadi.
+        // Nama unik: bind & prefetch untuk key yang sama bisa jalan bersamaan
+        File tmp;
+        try {
+            tmp = File.createTempFile(file.getName(), ".tmp", diskDir);
+        } catch (IOException e) {
+            return;
+        }
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            if (bitmap != NO_THUMB) {
+                Bitmap.CompressFormat format = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                        ? Bitmap.CompressFormat.WEBP_LOSSY
+                        : Bitmap.CompressFormat.WEBP;
+                bitmap.compress(format, WEBP_QUALITY, out);
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            return;
+        }
+
+        // Scroll panjang menulis terus: trim lagi begitu lewat batas
+        if (diskBytes.addAndGet(file.length()) > DISK_MAX_BYTES) {
+            scheduleTrim();
+        }
+    }
+
+    private void scheduleTrim() {
+        if (trimScheduled.compareAndSet(false, true)) {
+            executor.execute(this::trimDiskCache);
+        }
+    }
+
+    // File terlama dihapus sampai total di bawah batas
+    @WorkerThread
+    private void trimDiskCache() {
+        trimScheduled.set(false);
+
+        File[] files = diskDir.listFiles();
+        if (files == null) return;
+
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        diskBytes.set(total);
+        if (total <= DISK_MAX_BYTES) return;
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= DISK_MAX_BYTES * 3 / 4) break;
+
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+                diskBytes.addAndGet(-length);
+            }
+        }
+    }
+
+    private static String diskName(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder name = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16));
+                name.append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(key.hashCode());
+        }
+    }
+}
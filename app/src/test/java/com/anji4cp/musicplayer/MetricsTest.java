@@ -0,0 +1,95 @@
+package com.anji4cp.musicplayer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link Metrics}.
+ */
+public class MetricsTest {
+
+    private final Metrics metrics = Metrics.get();
+
+    @Before
+    public void setUp() {
+        metrics.reset();
+        metrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        metrics.setEnabled(false);
+        metrics.reset();
+    }
+
+    @Test
+    public void disabled_recordsNothing() {
+        metrics.setEnabled(false);
+
+        assertEquals(0, metrics.startTimer());
+        metrics.increment("a");
+        metrics.recordNanos("b", 5_000_000);
+
+        assertEquals(0, metrics.getCount("a"));
+        assertNull(metrics.getHistogram("b"));
+    }
+
+    @Test
+    public void counters_accumulate() {
+        metrics.increment("a");
+        metrics.add("a", 4);
+
+        assertEquals(5, metrics.getCount("a"));
+    }
+
+    @Test
+    public void histogram_percentilesWithinBucketError() {
+        // 1..1000 ms
+        for (int ms = 1; ms <= 1000; ms++) {
+            metrics.recordNanos("t", ms * 1_000_000L);
+        }
+
+        Metrics.Histogram h = metrics.getHistogram("t");
+        assertEquals(1000, h.getCount());
+        assertEquals(1_000_000, h.getMaxMicros());
+        assertEquals(500_500, h.getMeanMicros(), 1);
+
+        assertNear(500_000, h.percentileMicros(50));
+        assertNear(900_000, h.percentileMicros(90));
+        assertNear(990_000, h.percentileMicros(99));
+        assertEquals(1_000_000, h.percentileMicros(100));
+    }
+
+    @Test
+    public void buckets_coverEveryValue() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 1000, 123_456, 1L << 39, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = Metrics.Histogram.bucketOf(value);
+            if (value < (1L << 40)) {
+                assertTrue(value <= Metrics.Histogram.upperBoundOf(bucket));
+                if (bucket > 0) {
+                    assertTrue(value > Metrics.Histogram.upperBoundOf(bucket - 1));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void dump_listsCountersAndTimers() {
+        metrics.increment(Metrics.PLAYER_PLAY_SONG);
+        metrics.recordNanos(Metrics.PLAYER_PREPARE, 12_000_000);
+
+        String dump = metrics.dump();
+        assertTrue(dump.contains(Metrics.PLAYER_PLAY_SONG + " 1"));
+        assertTrue(dump.contains(Metrics.PLAYER_PREPARE + " 1 12.00"));
+    }
+
+    // Histogram menjamin error bucket ≤ 12,5%
+    private static void assertNear(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 8);
+    }
+}
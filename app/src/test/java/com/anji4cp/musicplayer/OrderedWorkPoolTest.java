@@ -0,0 +1,145 @@
+package com.anji4cp.musicplayer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link OrderedWorkPool}.
+ */
+public class OrderedWorkPoolTest {
+
+    private OrderedWorkPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new OrderedWorkPool(4, 8, 200);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private static List<Integer> range(int count) {
+        List<Integer> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+
+    @Test
+    public void output_keepsInputOrder() throws Exception {
+        Random random = new Random(7);
+        List<Integer> output = new ArrayList<>();
+
+        boolean finished = pool.run(
+                range(100).iterator(),
+                input -> {
+                    Thread.sleep(random.nextInt(5));
+                    return input * 2;
+                },
+                input -> -1,
+                output::add,
+                () -> false);
+
+        assertTrue(finished);
+        assertEquals(100, output.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 2, (int) output.get(i));
+        }
+    }
+
+    @Test
+    public void failure_usesFallback() throws Exception {
+        List<Integer> output = new ArrayList<>();
+
+        pool.run(
+                range(5).iterator(),
+                input -> {
+                    if (input == 2) throw new IllegalStateException("rusak");
+                    return input;
+                },
+                input -> -input,
+                output::add,
+                () -> false);
+
+        assertEquals(5, output.size());
+        assertEquals(-2, (int) output.get(2));
+        assertEquals(4, (int) output.get(4));
+    }
+
+    @Test
+    public void slowItem_timesOutWithoutStallingTheRest() throws Exception {
+        List<Integer> output = new ArrayList<>();
+        long start = System.nanoTime();
+
+        pool.run(
+                range(20).iterator(),
+                input -> {
+                    if (input == 3) {
+                        // Tidak peduli interrupt, seperti panggilan native yang macet
+                        long end = System.nanoTime() + 2_000_000_000L;
+                        while (System.nanoTime() < end) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                    return input;
+                },
+                input -> -1,
+                output::add,
+                () -> false);
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(20, output.size());
+        assertEquals(-1, (int) output.get(3));
+        assertEquals(19, (int) output.get(19));
+        assertTrue("elapsed " + elapsedMs, elapsedMs < 1500);
+    }
+
+    @Test
+    public void inFlight_isBounded() throws Exception {
+        AtomicInteger submitted = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        AtomicInteger emitted = new AtomicInteger();
+
+        pool.run(
+                range(200).iterator(),
+                input -> {
+                    submitted.incrementAndGet();
+                    return input;
+                },
+                input -> -1,
+                value -> {
+                    int ahead = submitted.get() - emitted.incrementAndGet();
+                    maxAhead.accumulateAndGet(ahead, Math::max);
+                },
+                () -> false);
+
+        assertTrue("ahead " + maxAhead.get(), maxAhead.get() < pool.getMaxInFlight());
+    }
+
+    @Test
+    public void cancel_stopsEarly() throws Exception {
+        List<Integer> output = new ArrayList<>();
+
+        boolean finished = pool.run(
+                range(1000).iterator(),
+                input -> input,
+                input -> -1,
+                output::add,
+                () -> output.size() >= 10);
+
+        assertFalse(finished);
+        assertEquals(10, output.size());
+    }
+}
@@ -0,0 +1,170 @@
+package com.anji4cp.musicplayer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PlayQueue}.
+ */
+public class PlayQueueTest {
+
+    private PlayQueue queue;
+
+    @Before
+    public void setUp() {
+        queue = new PlayQueue(new Random(7));
+    }
+
+    private static Song song(long id) {
+        return new Song(id, "Song " + id, "Artist", "/music/" + id + ".mp3", 1000, 1, 1);
+    }
+
+    private static List<Song> songs(int count) {
+        List<Song> songs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            songs.add(song(i));
+        }
+        return songs;
+    }
+
+    private void assertIds(long... expected) {
+        assertArrayEquals(expected, queue.songIds());
+        assertEquals(expected.length, queue.size());
+    }
+
+    @Test
+    public void setAll_keepsOrder() {
+        queue.setAll(songs(5));
+
+        assertIds(0, 1, 2, 3, 4);
+        assertEquals(3, queue.get(3).getId());
+        assertEquals(-1, queue.getCurrentIndex());
+    }
+
+    @Test
+    public void isPrefixOf_comparesByIdUpToQueueSize() {
+        List<Song> library = songs(10);
+        queue.setAll(library.subList(0, 4));
+
+        assertTrue(queue.isPrefixOf(library));
+        assertTrue(queue.isPrefixOf(library.subList(0, 4)));
+        assertFalse(queue.isPrefixOf(library.subList(0, 3)));
+
+        queue.move(0, 1);
+        assertFalse(queue.isPrefixOf(library));
+    }
+
+    @Test
+    public void insertAfterCurrent_playsNext() {
+        queue.setAll(songs(4));
+        queue.setCurrentIndex(1);
+
+        queue.insertAfterCurrent(song(10));
+        queue.insertAfterCurrent(song(11));
+
+        assertIds(0, 1, 11, 10, 2, 3);
+        assertEquals(1, queue.getCurrentIndex());
+    }
+
+    @Test
+    public void cursor_followsItsEntryThroughEdits() {
+        queue.setAll(songs(5));
+        queue.setCurrentIndex(2);
+        PlayQueue.Entry current = queue.getCurrent();
+
+        queue.insert(0, song(10));
+        queue.remove(4);
+        queue.move(3, 0);
+
+        assertSame(current, queue.getCurrent());
+        assertEquals(2, queue.getCurrentSong().getId());
+        assertEquals(queue.indexOf(current), queue.getCurrentIndex());
+        assertIds(2, 10, 0, 1, 4);
+    }
+
+    @Test
+    public void removeCurrent_movesCursorToFollowingItem() {
+        queue.setAll(songs(3));
+        queue.setCurrentIndex(1);
+
+        PlayQueue.Entry removed = queue.getCurrent();
+        queue.remove(1);
+        assertFalse(removed.isQueued());
+        assertEquals(2, queue.getCurrentSong().getId());
+
+        // Item terakhir → mundur
+        queue.remove(1);
+        assertEquals(0, queue.getCurrentSong().getId());
+
+        queue.remove(0);
+        assertNull(queue.getCurrent());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void duplicates_areSeparateEntries() {
+        queue.append(song(1));
+        queue.append(song(1));
+        queue.setCurrentIndex(1);
+
+        assertNotSame(queue.entryAt(0), queue.entryAt(1));
+        assertEquals(0, queue.indexOfSongId(1));
+        assertEquals(1, queue.getCurrentIndex());
+    }
+
+    @Test
+    public void randomEdits_matchArrayList() {
+        Random random = new Random(42);
+        List<Long> model = new ArrayList<>();
+        long nextId = 0;
+
+        for (int step = 0; step < 20_000; step++) {
+            int op = random.nextInt(4);
+            if (op == 0 || model.isEmpty()) {
+                int index = random.nextInt(model.size() + 1);
+                queue.insert(index, song(nextId));
+                model.add(index, nextId++);
+            } else if (op == 1) {
+                int index = random.nextInt(model.size());
+                assertEquals((long) model.remove(index), queue.remove(index).getId());
+            } else if (op == 2) {
+                int from = random.nextInt(model.size());
+                int to = random.nextInt(model.size());
+                queue.move(from, to);
+                model.add(to, model.remove(from));
+            } else {
+                int index = random.nextInt(model.size());
+                PlayQueue.Entry entry = queue.entryAt(index);
+                assertEquals((long) model.get(index), entry.getSong().getId());
+                assertEquals(index, queue.indexOf(entry));
+            }
+        }
+
+        long[] expected = new long[model.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = model.get(i);
+        }
+        assertIds(expected);
+    }
+
+    @Test
+    public void largeQueue_staysShallow() {
+        queue.setAll(songs(100_000));
+        queue.setCurrentIndex(50_000);
+
+        for (int i = 0; i < 1000; i++) {
+            queue.insertAfterCurrent(song(-i));
+            queue.append(song(-i));
+        }
+
+        assertEquals(102_000, queue.size());
+        assertEquals(50_000, queue.getCurrentIndex());
+        assertEquals(-999, queue.get(50_001).getId());
+    }
+}
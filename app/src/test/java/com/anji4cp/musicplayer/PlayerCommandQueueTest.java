@@ -0,0 +1,169 @@
+package com.anji4cp.musicplayer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PlayerCommandQueue}. The executor only
+ * collects the drain task, so commands pile up as they would while the
+ * playback thread is busy.
+ */
+public class PlayerCommandQueueTest {
+
+    private final List<Runnable> posted = new ArrayList<>();
+    private final List<String> executed = new ArrayList<>();
+    private final List<Long> requestTimes = new ArrayList<>();
+
+    private PlayerCommandQueue queue;
+
+    @Before
+    public void setUp() {
+        queue = new PlayerCommandQueue(posted::add, new PlayerCommandQueue.Target() {
+            @Override
+            public void skip(int offset, long requestedAt) {
+                executed.add("skip " + offset);
+                requestTimes.add(requestedAt);
+            }
+
+            @Override
+            public void seek(int positionMs) {
+                executed.add("seek " + positionMs);
+            }
+        });
+    }
+
+    private void runPosted() {
+        while (!posted.isEmpty()) {
+            posted.remove(0).run();
+        }
+    }
+
+    @Test
+    public void consecutiveNext_becomeOneJump() {
+        for (int i = 0; i < 5; i++) {
+            queue.skip(1, 0);
+        }
+        runPosted();
+
+        assertEquals(listOf("skip 5"), executed);
+    }
+
+    @Test
+    public void nextAndPrevious_mergeToNetOffset() {
+        queue.skip(1, 0);
+        queue.skip(1, 0);
+        queue.skip(-1, 0);
+        queue.skip(1, 0);
+        queue.skip(1, 0);
+        runPosted();
+
+        assertEquals(listOf("skip 3"), executed);
+    }
+
+    @Test
+    public void nextThenPrevious_cancelOut() {
+        queue.skip(1, 0);
+        queue.skip(-1, 0);
+        runPosted();
+
+        assertTrue(executed.isEmpty());
+    }
+
+    @Test
+    public void mergedSkip_carriesLatestRequestTime() {
+        queue.skip(1, 100);
+        queue.skip(1, 200);
+        queue.skip(1, 300);
+        queue.seek(0);
+        queue.skip(-1, 400);
+        runPosted();
+
+        assertEquals(listOf("skip 3", "seek 0", "skip -1"), executed);
+        assertEquals(2, requestTimes.size());
+        assertEquals(300L, (long) requestTimes.get(0));
+        assertEquals(400L, (long) requestTimes.get(1));
+    }
+
+    @Test
+    public void consecutiveSeeks_keepLastTarget() {
+        queue.seek(1000);
+        queue.seek(2000);
+        queue.seek(1500);
+        runPosted();
+
+        assertEquals(listOf("seek 1500"), executed);
+    }
+
+    @Test
+    public void otherCommands_breakMergingAndKeepOrder() {
+        queue.skip(1, 0);
+        queue.seek(100);
+        queue.skip(1, 0);
+        queue.run(() -> executed.add("toggle"));
+        queue.skip(1, 0);
+        queue.skip(1, 0);
+        runPosted();
+
+        assertEquals(listOf("skip 1", "seek 100", "skip 1", "toggle", "skip 2"), executed);
+    }
+
+    @Test
+    public void oneDrainPosted_whilePending() {
+        queue.skip(1, 0);
+        queue.seek(5);
+        queue.run(() -> {});
+
+        assertEquals(1, posted.size());
+
+        runPosted();
+        queue.skip(1, 0);
+        assertEquals(1, posted.size());
+    }
+
+    @Test
+    public void commandsAddedWhileDraining_runInSameDrain() {
+        queue.run(() -> {
+            executed.add("first");
+            queue.skip(1, 0);
+            queue.skip(1, 0);
+        });
+
+        posted.remove(0).run();
+
+        assertEquals(listOf("first", "skip 2"), executed);
+        assertTrue(posted.isEmpty());
+    }
+
+    @Test
+    public void runningSkip_isNotMergedWithNewOnes() {
+        PlayerCommandQueue[] reentrant = new PlayerCommandQueue[1];
+        reentrant[0] = new PlayerCommandQueue(posted::add, new PlayerCommandQueue.Target() {
+            @Override
+            public void skip(int offset, long requestedAt) {
+                executed.add("skip " + offset);
+                // Datang saat skip pertama sedang dijalankan
+                if (executed.size() == 1) reentrant[0].skip(1, 0);
+            }
+
+            @Override
+            public void seek(int positionMs) {
+            }
+        });
+
+        reentrant[0].skip(1, 0);
+        runPosted();
+
+        assertEquals(listOf("skip 1", "skip 1"), executed);
+    }
+
+    private static List<String> listOf(String... items) {
+        List<String> list = new ArrayList<>();
+        for (String item : items) list.add(item);
+        return list;
+    }
+}
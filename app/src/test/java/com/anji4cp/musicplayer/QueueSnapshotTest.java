@@ -0,0 +1,145 @@
+package com.anji4cp.musicplayer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link QueueSnapshot}.
+ */
+public class QueueSnapshotTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("snapshot").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static QueueSnapshot sample() {
+        return new QueueSnapshot(
+                new long[]{42, 7, Long.MAX_VALUE, 7},
+                2, 61_000, true,
+                new int[]{2, 0, 3, 1}, 1);
+    }
+
+    private static void assertSameSnapshot(QueueSnapshot expected, QueueSnapshot actual) {
+        assertArrayEquals(expected.songIds, actual.songIds);
+        assertEquals(expected.cursor, actual.cursor);
+        assertEquals(expected.positionMs, actual.positionMs);
+        assertEquals(expected.followsLibrary, actual.followsLibrary);
+        assertArrayEquals(expected.shuffleOrder, actual.shuffleOrder);
+        assertEquals(expected.shuffleCursor, actual.shuffleCursor);
+    }
+
+    @Test
+    public void roundTrip_keepsEveryField() throws IOException {
+        QueueSnapshot snapshot = sample();
+
+        assertSameSnapshot(snapshot, QueueSnapshot.decode(snapshot.encode()));
+    }
+
+    @Test
+    public void write_replacesFileAtomically() throws IOException {
+        File file = new File(dir, "queue.bin");
+        QueueSnapshot.write(file, sample());
+
+        QueueSnapshot updated = new QueueSnapshot(new long[]{1}, 0, 0, false, new int[0], -1);
+        QueueSnapshot.write(file, updated);
+
+        assertSameSnapshot(updated, QueueSnapshot.read(file));
+        assertFalse(new File(dir, "queue.bin.tmp").exists());
+    }
+
+    @Test
+    public void read_missingFileIsNull() throws IOException {
+        assertNull(QueueSnapshot.read(new File(dir, "none.bin")));
+    }
+
+    @Test
+    public void corruption_isDetected() {
+        byte[] data = sample().encode();
+
+        for (int i = 0; i < data.length; i++) {
+            byte[] broken = data.clone();
+            broken[i] ^= 0x10;
+            try {
+                QueueSnapshot.decode(broken);
+                fail("Flipped byte " + i + " not detected");
+            } catch (IOException expected) {
+                // ok
+            }
+        }
+    }
+
+    @Test
+    public void otherVersion_isRejected() {
+        byte[] data = sample().encode();
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.putInt(4, QueueSnapshot.VERSION - 1);
+
+        // Checksum dihitung ulang: yang ditolak versinya, bukan CRC
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        buffer.putInt(data.length - 4, (int) crc.getValue());
+
+        try {
+            QueueSnapshot.decode(data);
+            fail("Old version accepted");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("version"));
+        }
+    }
+
+    @Test
+    public void truncation_isDetected() {
+        byte[] data = sample().encode();
+
+        for (int length = 0; length < data.length; length++) {
+            byte[] cut = new byte[length];
+            System.arraycopy(data, 0, cut, 0, length);
+            try {
+                QueueSnapshot.decode(cut);
+                fail("Truncated to " + length + " not detected");
+            } catch (IOException expected) {
+                // ok
+            }
+        }
+    }
+
+    @Test
+    public void largeQueue_isCompact() throws IOException {
+        int count = 50_000;
+        long[] ids = new long[count];
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = 1_000_000L + i;
+            order[i] = count - 1 - i;
+        }
+        QueueSnapshot snapshot = new QueueSnapshot(ids, 123, 5000, false, order, 10);
+
+        byte[] data = snapshot.encode();
+        // 8 byte per ID + 4 byte per posisi shuffle + header
+        assertTrue(data.length < count * 12 + 64);
+        assertSameSnapshot(snapshot, QueueSnapshot.decode(data));
+    }
+}
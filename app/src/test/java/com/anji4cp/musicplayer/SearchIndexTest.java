@@ -0,0 +1,103 @@
+package com.anji4cp.musicplayer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SearchIndex}.
+ */
+public class SearchIndexTest {
+
+    private SearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new SearchIndex();
+        index.add(1, "Bohemian Rhapsody", "Queen");
+        index.add(2, "Café del Mar", "Energy 52");
+        index.add(3, "Hey Jude", "The Beatles");
+        index.add(4, "Yesterday", "The Beatles");
+    }
+
+    private static Set<Long> ids(long... values) {
+        Set<Long> set = new HashSet<>();
+        for (long value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    @Test
+    public void emptyQuery_meansNoFilter() {
+        assertNull(index.search(""));
+        assertNull(index.search("  -- "));
+    }
+
+    @Test
+    public void prefix_matchesTokenStart() {
+        assertEquals(ids(1), index.search("boh"));
+        assertEquals(ids(3, 4), index.search("beat"));
+    }
+
+    @Test
+    public void allTokensMustMatch() {
+        assertEquals(ids(4), index.search("beatles yest"));
+        assertEquals(ids(), index.search("queen jude"));
+    }
+
+    @Test
+    public void diacriticsAndCase_areIgnored() {
+        assertEquals(ids(2), index.search("cafe"));
+        assertEquals(ids(2), index.search("CAFÉ"));
+        assertEquals(Arrays.asList("cafe", "del", "mar"),
+                Arrays.asList(SearchIndex.tokenize("Café  del-Mar")));
+    }
+
+    @Test
+    public void oneTypo_isTolerated() {
+        assertEquals(ids(1), index.search("rhapsdy"));   // hapus
+        assertEquals(ids(1), index.search("rhapsoody")); // sisip
+        assertEquals(ids(3, 4), index.search("baetles"));  // tukar
+        assertEquals(ids(4), index.search("yesterdsy")); // substitusi
+        assertEquals(ids(), index.search("yestrdsy"));   // dua edit
+    }
+
+    @Test
+    public void shortTokens_needExactPrefix() {
+        assertEquals(ids(), index.search("jid"));
+        assertEquals(ids(3), index.search("jud"));
+    }
+
+    @Test
+    public void remove_dropsSongAndUnusedTokens() {
+        index.remove(3);
+
+        assertEquals(ids(4), index.search("beatles"));
+        assertEquals(ids(), index.search("jude"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void add_replacesExistingEntry() {
+        index.add(4, "Let It Be", "The Beatles");
+
+        assertEquals(ids(), index.search("yesterday"));
+        assertEquals(ids(4), index.search("let"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void isWithinOneEdit() {
+        assertTrue(SearchIndex.isWithinOneEdit("form", "from"));
+        assertTrue(SearchIndex.isWithinOneEdit("abc", "abcd"));
+        assertTrue(SearchIndex.isWithinOneEdit("abc", "abc"));
+        assertFalse(SearchIndex.isWithinOneEdit("abc", "cab"));
+        assertFalse(SearchIndex.isWithinOneEdit("abcd", "ab"));
+    }
+}
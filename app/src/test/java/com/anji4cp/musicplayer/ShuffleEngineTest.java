@@ -0,0 +1,255 @@
+package com.anji4cp.musicplayer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ShuffleEngine}.
+ */
+public class ShuffleEngineTest {
+
+    private ShuffleEngine shuffle;
+
+    @Before
+    public void setUp() {
+        shuffle = new ShuffleEngine(new Random(11));
+    }
+
+    private static void assertPermutation(int[] order, int size) {
+        assertEquals(size, order.length);
+        Set<Integer> seen = new HashSet<>();
+        for (int index : order) {
+            assertTrue("out of range: " + index, index >= 0 && index < size);
+            assertTrue("duplicate: " + index, seen.add(index));
+        }
+    }
+
+    // Urutan relatif "expected" tetap sama di dalam "order"
+    private static void assertSubsequence(int[] expected, int[] order) {
+        int at = 0;
+        for (int index : order) {
+            if (at < expected.length && index == expected[at]) at++;
+        }
+        assertEquals("relative order lost", expected.length, at);
+    }
+
+    private static int positionOf(int[] order, int index) {
+        for (int i = 0; i < order.length; i++) {
+            if (order[i] == index) return i;
+        }
+        return -1;
+    }
+
+    @Test
+    public void reset_startsAtFirstTrack() {
+        shuffle.reset(10, 4);
+
+        assertEquals(4, shuffle.current());
+        assertEquals(0, shuffle.getCursor());
+        assertPermutation(shuffle.getOrder(), 10);
+    }
+
+    @Test
+    public void everyTrackPlaysOncePerCycle() {
+        int size = 20;
+        shuffle.reset(size, 0);
+
+        // Siklus pertama: lagu awal + size - 1 kali next
+        Set<Integer> cycle = new HashSet<>();
+        cycle.add(shuffle.current());
+        for (int i = 1; i < size; i++) {
+            assertTrue(cycle.add(shuffle.next()));
+        }
+        assertEquals(size, cycle.size());
+
+        int last = shuffle.current();
+        for (int round = 0; round < 5; round++) {
+            cycle.clear();
+            for (int i = 0; i < size; i++) {
+                int index = shuffle.next();
+                // Antar siklus tidak pernah lagu yang sama berturut-turut
+                if (i == 0) assertTrue(index != last);
+                assertTrue("repeated in cycle: " + index, cycle.add(index));
+            }
+            assertEquals(size, cycle.size());
+            last = shuffle.current();
+        }
+    }
+
+    @Test
+    public void peekNext_matchesNextUntilCycleEnds() {
+        shuffle.reset(3, 0);
+
+        assertEquals(shuffle.peekNext(), shuffle.next());
+        assertEquals(shuffle.peekNext(), shuffle.next());
+        assertEquals(-1, shuffle.peekNext());
+    }
+
+    @Test
+    public void previous_walksBackWithinCycle() {
+        shuffle.reset(10, 0);
+        int first = shuffle.current();
+        int second = shuffle.next();
+        shuffle.next();
+
+        assertEquals(second, shuffle.previous());
+        assertEquals(first, shuffle.previous());
+    }
+
+    @Test
+    public void previous_atStartOfCycle_staysOnCurrent() {
+        shuffle.reset(5, 2);
+
+        assertEquals(2, shuffle.previous());
+        assertEquals(0, shuffle.getCursor());
+
+        // Siklus baru juga tanpa riwayat
+        for (int i = 1; i < 5; i++) shuffle.next();
+        int start = shuffle.next();
+        assertEquals(0, shuffle.getCursor());
+        assertEquals(start, shuffle.previous());
+        assertEquals(0, shuffle.getCursor());
+    }
+
+    @Test
+    public void select_unplayedTrack_comesNextInCycle() {
+        shuffle.reset(10, 0);
+        int[] before = shuffle.getOrder();
+        int target = before[7];
+
+        shuffle.select(target);
+
+        assertEquals(target, shuffle.current());
+        assertEquals(1, shuffle.getCursor());
+        // Lagu yang tertukar tetap belum diputar
+        assertTrue(positionOf(shuffle.getOrder(), before[1]) > 1);
+    }
+
+    @Test
+    public void select_playedTrack_startsNewCycle() {
+        shuffle.reset(10, 0);
+        int played = shuffle.current();
+        shuffle.next();
+        shuffle.next();
+
+        shuffle.select(played);
+
+        assertEquals(played, shuffle.current());
+        assertEquals(0, shuffle.getCursor());
+        assertPermutation(shuffle.getOrder(), 10);
+    }
+
+    @Test
+    public void remap_deletedTracks_keepOrderAndCurrent() {
+        shuffle.reset(6, 0);
+        shuffle.next();
+        shuffle.next();
+        int current = shuffle.current();
+        int[] before = shuffle.getOrder();
+
+        // Hapus lagu 1 dan 4 (bukan yang sedang diputar), sisanya bergeser
+        int deletedA = current == 1 ? 2 : 1;
+        int deletedB = current == 4 ? 5 : 4;
+        int[] oldToNew = new int[6];
+        int next = 0;
+        for (int i = 0; i < 6; i++) {
+            oldToNew[i] = (i == deletedA || i == deletedB) ? -1 : next++;
+        }
+
+        shuffle.remap(oldToNew, 4);
+
+        int[] after = shuffle.getOrder();
+        assertPermutation(after, 4);
+        assertEquals(oldToNew[current], shuffle.current());
+
+        List<Integer> expected = new ArrayList<>();
+        for (int index : before) {
+            if (oldToNew[index] >= 0) expected.add(oldToNew[index]);
+        }
+        for (int i = 0; i < after.length; i++) {
+            assertEquals((int) expected.get(i), after[i]);
+        }
+    }
+
+    @Test
+    public void remap_deletedCurrentTrack_stepsBack() {
+        shuffle.reset(5, 0);
+        int previous = shuffle.next();
+        int current = shuffle.next();
+
+        int[] oldToNew = new int[5];
+        int next = 0;
+        for (int i = 0; i < 5; i++) {
+            oldToNew[i] = i == current ? -1 : next++;
+        }
+
+        shuffle.remap(oldToNew, 4);
+
+        assertEquals(oldToNew[previous], shuffle.current());
+        assertEquals(1, shuffle.getCursor());
+        assertPermutation(shuffle.getOrder(), 4);
+    }
+
+    @Test
+    public void remap_addedTracks_goToUnplayedPart() {
+        shuffle.reset(5, 0);
+        shuffle.next();
+        shuffle.next();
+        int[] before = shuffle.getOrder();
+
+        // Semua lagu lama tetap di posisinya, 3 lagu baru di akhir list
+        int[] oldToNew = {0, 1, 2, 3, 4};
+        shuffle.remap(oldToNew, 8);
+
+        int[] after = shuffle.getOrder();
+        assertPermutation(after, 8);
+        assertEquals(2, shuffle.getCursor());
+        for (int i = 0; i <= 2; i++) {
+            assertEquals(before[i], after[i]);
+        }
+        for (int added = 5; added < 8; added++) {
+            assertTrue(positionOf(after, added) > shuffle.getCursor());
+        }
+    }
+
+    @Test
+    public void restore_withDeletedAndAddedTracks() {
+        // Urutan tersimpan, sudah diterjemahkan: dua lagu hilang (-1)
+        int[] saved = {3, -1, 0, 2, -1, 1};
+        shuffle.restore(saved, 3, 6);
+
+        int[] order = shuffle.getOrder();
+        assertPermutation(order, 6);
+        assertEquals(2, shuffle.current());
+        assertEquals(2, shuffle.getCursor());
+        assertSubsequence(new int[] {3, 0, 2, 1}, order);
+
+        // Lagu 4 dan 5 baru di list → belum diputar
+        assertTrue(positionOf(order, 4) > shuffle.getCursor());
+        assertTrue(positionOf(order, 5) > shuffle.getCursor());
+
+        // Sisa siklus: semua lagu yang belum diputar, masing-masing sekali
+        Set<Integer> rest = new HashSet<>();
+        while (shuffle.peekNext() >= 0) {
+            assertTrue(rest.add(shuffle.next()));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(1, 4, 5)), rest);
+    }
+
+    @Test
+    public void restore_everythingDeleted_startsFromNewList() {
+        shuffle.restore(new int[] {-1, -1}, 1, 3);
+
+        assertPermutation(shuffle.getOrder(), 3);
+        assertEquals(0, shuffle.getCursor());
+    }
+}
@@ -0,0 +1,372 @@
+package com.anji4cp.musicplayer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link TagReader}, using small synthetic files
+ * built byte by byte.
+ */
+public class TagReaderTest {
+
+    private static final byte[] PICTURE = {(byte) 0xFF, (byte) 0xD8, 1, 2, 3, 4, 5, (byte) 0xFF, (byte) 0xD9};
+
+    private final List<File> files = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    private File write(byte[] content) throws IOException {
+        File file = File.createTempFile("tag", ".bin");
+        files.add(file);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        return file;
+    }
+
+    // =========================
+    // ID3v2
+    // =========================
+    private static byte[] syncSafe(int value) {
+        return new byte[]{
+                (byte) ((value >> 21) & 0x7F),
+                (byte) ((value >> 14) & 0x7F),
+                (byte) ((value >> 7) & 0x7F),
+                (byte) (value & 0x7F)
+        };
+    }
+
+    private static byte[] id3Frame(int major, String id, byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(id.getBytes(StandardCharsets.ISO_8859_1));
+        if (major == 4) {
+            out.writeBytes(syncSafe(body.length));
+        } else {
+            out.writeBytes(ByteBuffer.allocate(4).putInt(body.length).array());
+        }
+        out.write(0);
+        out.write(0);
+        out.writeBytes(body);
+        return out.toByteArray();
+    }
+
+    private static byte[] text(int encoding, String value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(encoding);
+        switch (encoding) {
+            case 1:
+                out.writeBytes(value.getBytes(StandardCharsets.UTF_16));
+                break;
+            case 3:
+                out.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+                break;
+            default:
+                out.writeBytes(value.getBytes(StandardCharsets.ISO_8859_1));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] apic(int pictureType, String description) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        out.writeBytes("image/jpeg".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(0);
+        out.write(pictureType);
+        out.writeBytes(description.getBytes(StandardCharsets.ISO_8859_1));
+        out.write(0);
+        out.writeBytes(PICTURE);
+        return out.toByteArray();
+    }
+
+    private static byte[] id3Tag(int major, byte[]... frames) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (byte[] frame : frames) {
+            body.writeBytes(frame);
+        }
+        // Padding
+        body.writeBytes(new byte[32]);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes("ID3".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(major);
+        out.write(0);
+        out.write(0);
+        out.writeBytes(syncSafe(body.size()));
+        out.writeBytes(body.toByteArray());
+
+        // Sedikit "audio" palsu
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xFB, 0x10, 0x00});
+        return out.toByteArray();
+    }
+
+    @Test
+    public void id3v23_readsTextAndLocatesPicture() throws IOException {
+        File file = write(id3Tag(3,
+                id3Frame(3, "TIT2", text(0, "Hey Jude")),
+                id3Frame(3, "TPE1", text(1, "The Beatlés")),
+                id3Frame(3, "TALB", text(0, "Single")),
+                id3Frame(3, "TRCK", text(0, "7/12")),
+                id3Frame(3, "TLEN", text(0, "431000")),
+                id3Frame(3, "APIC", apic(3, "cover"))));
+
+        TagReader.Tags tags = TagReader.read(file);
+
+        assertNotNull(tags);
+        assertEquals(TagReader.FORMAT_ID3, tags.getFormat());
+        assertEquals("Hey Jude", tags.getTitle());
+        assertEquals("The Beatlés", tags.getArtist());
+        assertEquals("Single", tags.getAlbum());
+        assertEquals(7, tags.getTrackNumber());
+        assertEquals(431000, tags.getDurationMs());
+        assertTrue(tags.hasPicture());
+        assertEquals("image/jpeg", tags.getPictureMime());
+        assertEquals(PICTURE.length, tags.getPictureLength());
+        assertArrayEquals(PICTURE, TagReader.readPicture(file));
+    }
+
+    @Test
+    public void id3v24_usesSyncSafeFrameSizesAndUtf8() throws IOException {
+        File file = write(id3Tag(4,
+                id3Frame(4, "TIT2", text(3, "Café del Mar")),
+                id3Frame(4, "APIC", apic(0, "other")),
+                id3Frame(4, "APIC", apic(3, "front"))));
+
+        TagReader.Tags tags = TagReader.read(file);
+
+        assertNotNull(tags);
+        assertEquals("Café del Mar", tags.getTitle());
+        assertNull(tags.getArtist());
+        assertArrayEquals(PICTURE, TagReader.readPicture(file));
+    }
+
+    @Test
+    public void id3v22_readsThreeLetterFrames() throws IOException {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        byte[] title = text(0, "Yesterday");
+        frames.writeBytes("TT2".getBytes(StandardCharsets.ISO_8859_1));
+        frames.writeBytes(new byte[]{0, 0, (byte) title.length});
+        frames.writeBytes(title);
+
+        ByteArrayOutputStream pic = new ByteArrayOutputStream();
+        pic.write(0);
+        pic.writeBytes("JPG".getBytes(StandardCharsets.ISO_8859_1));
+        pic.write(3);
+        pic.write(0);
+        pic.writeBytes(PICTURE);
+        frames.writeBytes("PIC".getBytes(StandardCharsets.ISO_8859_1));
+        frames.writeBytes(new byte[]{0, 0, (byte) pic.size()});
+        frames.writeBytes(pic.toByteArray());
+
+        File file = write(id3Tag(2, frames.toByteArray()));
+        TagReader.Tags tags = TagReader.read(file);
+
+        assertNotNull(tags);
+        assertEquals("Yesterday", tags.getTitle());
+        assertArrayEquals(PICTURE, TagReader.readPicture(file));
+    }
+
+    @Test
+    public void id3_truncatedFile_doesNotThrow() throws IOException {
+        byte[] full = id3Tag(3,
+                id3Frame(3, "TIT2", text(0, "Hey Jude")),
+                id3Frame(3, "APIC", apic(3, "cover")));
+        byte[] truncated = new byte[30];
+        System.arraycopy(full, 0, truncated, 0, truncated.length);
+
+        TagReader.Tags tags = TagReader.read(write(truncated));
+
+        assertNotNull(tags);
+        assertEquals("Hey Jude", tags.getTitle());
+        assertFalse(tags.hasPicture());
+    }
+
+    // =========================
+    // FLAC
+    // =========================
+    private static byte[] flacBlock(int type, boolean last, byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write((last ? 0x80 : 0) | type);
+        out.write((body.length >> 16) & 0xFF);
+        out.write((body.length >> 8) & 0xFF);
+        out.write(body.length & 0xFF);
+        out.writeBytes(body);
+        return out.toByteArray();
+    }
+
+    private static byte[] streamInfo(int sampleRate, long totalSamples) {
+        ByteBuffer info = ByteBuffer.allocate(34);
+        info.position(10);
+        // sample rate (20) | channel-1 (3) | bps-1 (5) | total sample (36)
+        long packed = ((long) sampleRate << 44) | (1L << 41) | (15L << 36) | totalSamples;
+        info.putLong(packed);
+        return info.array();
+    }
+
+    private static byte[] vorbisComments(String... comments) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer number = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+
+        byte[] vendor = "test".getBytes(StandardCharsets.UTF_8);
+        out.writeBytes(number.putInt(0, vendor.length).array());
+        out.writeBytes(vendor);
+        out.writeBytes(number.putInt(0, comments.length).array());
+        for (String comment : comments) {
+            byte[] bytes = comment.getBytes(StandardCharsets.UTF_8);
+            out.writeBytes(number.putInt(0, bytes.length).array());
+            out.writeBytes(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] flacPicture() {
+        byte[] mime = "image/png".getBytes(StandardCharsets.US_ASCII);
+        byte[] description = "front".getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer block = ByteBuffer.allocate(4 + 4 + mime.length + 4 + description.length + 16 + 4 + PICTURE.length);
+        block.putInt(3);
+        block.putInt(mime.length).put(mime);
+        block.putInt(description.length).put(description);
+        block.putInt(500).putInt(500).putInt(24).putInt(0);
+        block.putInt(PICTURE.length).put(PICTURE);
+        return block.array();
+    }
+
+    @Test
+    public void flac_readsCommentsDurationAndPicture() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes("fLaC".getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(flacBlock(0, false, streamInfo(44100, 44100L * 185)));
+        out.writeBytes(flacBlock(4, false, vorbisComments(
+                "title=Bohemian Rhapsody", "ARTIST=Queen", "ALBUM=A Night at the Opera", "TRACKNUMBER=11")));
+        out.writeBytes(flacBlock(6, true, flacPicture()));
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xF8});
+
+        File file = write(out.toByteArray());
+        TagReader.Tags tags = TagReader.read(file);
+
+        assertNotNull(tags);
+        assertEquals(TagReader.FORMAT_FLAC, tags.getFormat());
+        assertEquals("Bohemian Rhapsody", tags.getTitle());
+        assertEquals("Queen", tags.getArtist());
+        assertEquals("A Night at the Opera", tags.getAlbum());
+        assertEquals(11, tags.getTrackNumber());
+        assertEquals(185_000, tags.getDurationMs());
+        assertEquals("image/png", tags.getPictureMime());
+        assertArrayEquals(PICTURE, TagReader.readPicture(file));
+    }
+
+    // Panjang mime/deskripsi yang overflow saat dijumlahkan dengan offset
+    @Test
+    public void flac_corruptPictureLengths_areIgnored() throws IOException {
+        for (int field = 0; field < 2; field++) {
+            byte[] picture = flacPicture();
+            int offset = field == 0 ? 4 : 4 + 4 + "image/png".length();
+            ByteBuffer.wrap(picture).putInt(offset, 0x7FFFFFF5);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.writeBytes("fLaC".getBytes(StandardCharsets.US_ASCII));
+            out.writeBytes(flacBlock(0, false, streamInfo(44100, 44100L * 185)));
+            out.writeBytes(flacBlock(6, true, picture));
+
+            TagReader.Tags tags = TagReader.read(write(out.toByteArray()));
+
+            assertNotNull(tags);
+            assertEquals(185_000, tags.getDurationMs());
+            assertNull(tags.getPictureMime());
+        }
+    }
+
+    // =========================
+    // MP4
+    // =========================
+    private static byte[] atom(String type, byte[]... children) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (byte[] child : children) {
+            body.writeBytes(child);
+        }
+        ByteBuffer header = ByteBuffer.allocate(8);
+        header.putInt(8 + body.size());
+        header.put(type.getBytes(StandardCharsets.ISO_8859_1));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(header.array());
+        out.writeBytes(body.toByteArray());
+        return out.toByteArray();
+    }
+
+    private static byte[] data(int type, byte[] payload) {
+        ByteBuffer prefix = ByteBuffer.allocate(8).putInt(type).putInt(0);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(prefix.array());
+        body.writeBytes(payload);
+        return atom("data", body.toByteArray());
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void mp4_readsIlstItemsDurationAndCover() throws IOException {
+        byte[] mvhd = ByteBuffer.allocate(100)
+                .putInt(0)          // versi + flag
+                .putInt(0).putInt(0) // waktu dibuat / diubah
+                .putInt(1000)        // timescale
+                .putInt(242_000)     // durasi
+                .array();
+
+        byte[] hdlr = atom("hdlr", new byte[25]);
+        byte[] ilst = atom("ilst",
+                atom("©nam", data(1, utf8("Yesterday"))),
+                atom("©ART", data(1, utf8("The Beatles"))),
+                atom("©alb", data(1, utf8("Help!"))),
+                atom("trkn", data(0, new byte[]{0, 0, 0, 13, 0, 14, 0, 0})),
+                atom("covr", data(13, PICTURE)));
+        byte[] meta = atom("meta", new byte[4], hdlr, ilst);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(atom("ftyp", utf8("M4A "), new byte[4]));
+        // moov di akhir file (tidak faststart)
+        out.writeBytes(atom("mdat", new byte[64]));
+        out.writeBytes(atom("moov", atom("mvhd", mvhd), atom("udta", meta)));
+
+        File file = write(out.toByteArray());
+        TagReader.Tags tags = TagReader.read(file);
+
+        assertNotNull(tags);
+        assertEquals(TagReader.FORMAT_MP4, tags.getFormat());
+        assertEquals("Yesterday", tags.getTitle());
+        assertEquals("The Beatles", tags.getArtist());
+        assertEquals("Help!", tags.getAlbum());
+        assertEquals(13, tags.getTrackNumber());
+        assertEquals(242_000, tags.getDurationMs());
+        assertEquals("image/jpeg", tags.getPictureMime());
+        assertArrayEquals(PICTURE, TagReader.readPicture(file));
+    }
+
+    // =========================
+    // UNKNOWN
+    // =========================
+    @Test
+    public void unknownFormat_returnsNull() throws IOException {
+        assertNull(TagReader.read(write(utf8("RIFF....WAVEfmt "))));
+        assertNull(TagReader.read(write(new byte[4])));
+    }
+}
@@ -0,0 +1,48 @@
+// Benchmark JMH untuk kode inti yang murni Java (tanpa Android SDK).
+// Jalankan: ./gradlew :benchmark:jmh
+// Hasil: benchmark/build/results/jmh/results.json
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Kelas inti dikompilasi langsung dari modul app, jadi yang diukur
+// selalu kode produksi pada commit yang sama
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/anji4cp/musicplayer/Song.java",
+                "com/anji4cp/musicplayer/ShuffleEngine.java",
+                "com/anji4cp/musicplayer/PlayQueue.java",
+                "com/anji4cp/musicplayer/QueueSnapshot.java",
+                "com/anji4cp/musicplayer/SearchIndex.java"
+            )
+        }
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    timeOnIteration.set("1s")
+    warmup.set("1s")
+
+    // Alokasi per operasi (gc.alloc.rate.norm) ikut dilaporkan
+    profilers.add("gc")
+
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
@@ -0,0 +1,98 @@
+package com.anji4cp.musicplayer.benchmark;
+
+import com.anji4cp.musicplayer.PlayQueue;
+import com.anji4cp.musicplayer.SearchIndex;
+import com.anji4cp.musicplayer.Song;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Song-list load path as MusicLibrary and PlayerManager drive it, per
+ * scanner batch (50, then 500): SearchIndex.add for each song, the list
+ * copy handed to the player, and the queue prefix check followed by
+ * PlayQueue.appendAll. Also the full-list paths: setAll after a rescan and
+ * one prefix check over the whole queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LibraryLoadBenchmark {
+
+    private static final int FIRST_BATCH_SIZE = 50;
+    private static final int BATCH_SIZE = 500;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private List<List<Song>> batches;
+    private List<Song> songs;
+    private PlayQueue fullQueue;
+
+    @Setup
+    public void setUp() {
+        songs = SyntheticLibrary.songs(size);
+
+        batches = new ArrayList<>();
+        int offset = 0;
+        int limit = FIRST_BATCH_SIZE;
+        while (offset < size) {
+            int end = Math.min(size, offset + limit);
+            batches.add(new ArrayList<>(songs.subList(offset, end)));
+            offset = end;
+            limit = BATCH_SIZE;
+        }
+
+        fullQueue = new PlayQueue(new Random(42));
+        fullQueue.setAll(songs);
+    }
+
+    // Seluruh scan: semua batch lewat jalur yang sama dengan app
+    @Benchmark
+    public PlayQueue loadBatches() {
+        List<Song> library = new ArrayList<>();
+        SearchIndex searchIndex = new SearchIndex();
+        PlayQueue queue = new PlayQueue(new Random(42));
+
+        for (List<Song> batch : batches) {
+            // MusicLibrary.onBatch
+            library.addAll(batch);
+            for (Song song : batch) {
+                searchIndex.add(song);
+            }
+
+            // PlayerManager.setSongList → syncQueueWithLibrary
+            List<Song> copy = new ArrayList<>(library);
+            if (queue.isPrefixOf(copy)) {
+                queue.appendAll(copy.subList(queue.size(), copy.size()));
+            } else {
+                queue.setAll(copy);
+            }
+        }
+        return queue;
+    }
+
+    // Rescan yang mengganti list: antrean dibangun ulang
+    @Benchmark
+    public PlayQueue replaceQueue() {
+        PlayQueue queue = new PlayQueue(new Random(42));
+        queue.setAll(songs);
+        return queue;
+    }
+
+    @Benchmark
+    public boolean prefixCheckFullQueue() {
+        return fullQueue.isPrefixOf(songs);
+    }
+}
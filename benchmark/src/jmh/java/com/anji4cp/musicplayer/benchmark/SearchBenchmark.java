@@ -0,0 +1,77 @@
+package com.anji4cp.musicplayer.benchmark;
+
+import com.anji4cp.musicplayer.SearchIndex;
+import com.anji4cp.musicplayer.Song;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SearchIndex build and per-keystroke queries. A query has to finish well
+ * inside one 16 ms frame at every library size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private List<Song> songs;
+    private SearchIndex index;
+
+    @Setup
+    public void setUp() {
+        songs = SyntheticLibrary.songs(size);
+        index = new SearchIndex();
+        for (Song song : songs) {
+            index.add(song);
+        }
+    }
+
+    @Benchmark
+    public SearchIndex build() {
+        SearchIndex built = new SearchIndex();
+        for (Song song : songs) {
+            built.add(song);
+        }
+        return built;
+    }
+
+    // Huruf pertama: prefix paling lebar
+    @Benchmark
+    public Set<Long> singleLetter() {
+        return index.search("s");
+    }
+
+    @Benchmark
+    public Set<Long> prefix() {
+        return index.search("summ");
+    }
+
+    @Benchmark
+    public Set<Long> typo() {
+        return index.search("sumemr");
+    }
+
+    @Benchmark
+    public Set<Long> diacritics() {
+        return index.search("cafe senor");
+    }
+
+    @Benchmark
+    public Set<Long> twoTokens() {
+        return index.search("beatles love");
+    }
+}
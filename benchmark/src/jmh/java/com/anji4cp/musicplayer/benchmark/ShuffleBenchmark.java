@@ -0,0 +1,71 @@
+package com.anji4cp.musicplayer.benchmark;
+
+import com.anji4cp.musicplayer.ShuffleEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ShuffleEngine navigation (should stay O(1) regardless of library size),
+ * plus the O(n) reset and remap done when the list changes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShuffleBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private ShuffleEngine engine;
+    private int[] oldToNew;
+
+    @Setup
+    public void setUp() {
+        engine = new ShuffleEngine(new Random(42));
+        engine.reset(size, 0);
+
+        // Satu lagu dihapus di tengah, sisanya bergeser
+        oldToNew = new int[size];
+        int removed = size / 2;
+        for (int i = 0; i < size; i++) {
+            oldToNew[i] = i < removed ? i : (i == removed ? -1 : i - 1);
+        }
+    }
+
+    @Benchmark
+    public int next() {
+        return engine.next();
+    }
+
+    @Benchmark
+    public int nextThenPrevious() {
+        engine.next();
+        return engine.previous();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int reset() {
+        engine.reset(size, 0);
+        return engine.current();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int remap() {
+        ShuffleEngine copy = new ShuffleEngine(new Random(7));
+        copy.restore(engine.getOrder(), engine.getCursor(), size);
+        copy.remap(oldToNew, size - 1);
+        return copy.size();
+    }
+}
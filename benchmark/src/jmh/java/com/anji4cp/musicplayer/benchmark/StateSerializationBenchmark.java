@@ -0,0 +1,88 @@
+package com.anji4cp.musicplayer.benchmark;
+
+import com.anji4cp.musicplayer.PlayQueue;
+import com.anji4cp.musicplayer.QueueSnapshot;
+import com.anji4cp.musicplayer.ShuffleEngine;
+import com.anji4cp.musicplayer.Song;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and restoring the queue snapshot, in memory so disk speed does
+ * not blur the numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StateSerializationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private QueueSnapshot snapshot;
+    private byte[] savedSnapshot;
+    private Map<Long, Song> songsById;
+
+    @Setup
+    public void setUp() {
+        List<Song> songs = SyntheticLibrary.songs(size);
+
+        long[] ids = new long[size];
+        songsById = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            ids[i] = songs.get(i).getId();
+            songsById.put(ids[i], songs.get(i));
+        }
+
+        ShuffleEngine engine = new ShuffleEngine(new Random(42));
+        engine.reset(size, 0);
+        for (int i = 0; i < size / 3; i++) {
+            engine.next();
+        }
+
+        snapshot = new QueueSnapshot(ids, size / 3, 61_000,
+                false, engine.getOrder(), engine.getCursor());
+        savedSnapshot = snapshot.encode();
+    }
+
+    @Benchmark
+    public byte[] encodeSnapshot() {
+        return snapshot.encode();
+    }
+
+    @Benchmark
+    public QueueSnapshot decodeSnapshot() throws IOException {
+        return QueueSnapshot.decode(savedSnapshot);
+    }
+
+    // Decode + ID → lagu + bangun antrean, seperti saat app dibuka
+    @Benchmark
+    public PlayQueue restoreQueue() throws IOException {
+        QueueSnapshot decoded = QueueSnapshot.decode(savedSnapshot);
+
+        Song[] songs = new Song[decoded.songIds.length];
+        for (int i = 0; i < songs.length; i++) {
+            songs[i] = songsById.get(decoded.songIds[i]);
+        }
+
+        PlayQueue queue = new PlayQueue(new Random(42));
+        queue.setAll(Arrays.asList(songs));
+        queue.setCurrentIndex(decoded.cursor);
+        return queue;
+    }
+}
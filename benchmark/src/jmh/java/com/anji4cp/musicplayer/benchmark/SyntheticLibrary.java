@@ -0,0 +1,54 @@
+package com.anji4cp.musicplayer.benchmark;
+
+import com.anji4cp.musicplayer.Song;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic fake libraries, so numbers from different commits are
+ * measured on the same data.
+ */
+final class SyntheticLibrary {
+
+    private static final String[] WORDS = {
+            "love", "night", "dream", "heart", "rain", "fire", "light", "road",
+            "summer", "river", "shadow", "gold", "ocean", "city", "star", "home",
+            "café", "señor", "über", "naïve", "lagu", "cinta", "malam", "hujan"
+    };
+
+    private static final String[] ARTISTS = {
+            "The Beatles", "Queen", "Noah", "Dewa 19", "Sheila on 7", "Björk",
+            "Sigur Rós", "Daft Punk", "Radiohead", "Tulus", "Raisa", "Coldplay"
+    };
+
+    private SyntheticLibrary() {
+    }
+
+    static List<Song> songs(int size) {
+        Random random = new Random(42);
+        List<Song> songs = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            int words = 1 + random.nextInt(4);
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < words; w++) {
+                if (w > 0) title.append(' ');
+                title.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            title.append(' ').append(i);
+
+            String artist = ARTISTS[random.nextInt(ARTISTS.length)];
+            songs.add(new Song(
+                    1_000_000L + i,
+                    title.toString(),
+                    artist,
+                    "/storage/emulated/0/Music/" + artist + "/" + i + ".mp3",
+                    120_000 + random.nextInt(240_000),
+                    3_000_000 + random.nextInt(9_000_000),
+                    1_600_000_000L + random.nextInt(100_000_000)));
+        }
+        return songs;
+    }
+}